@@ -52,13 +52,25 @@ public interface Application {
 	EventBus getEventBus();
 
 	/**
-	 * Returns the application-wide command history which enables undo-redo
-	 * functionality.
+	 * Returns the command history of the active document which enables
+	 * undo-redo functionality.
 	 *
-	 * @return the application-wide command history
+	 * @return the command history of the active document or null if no
+	 *         document editor is active
 	 */
 	History getHistory();
 
+	/**
+	 * Returns the command history of the given document. Every open
+	 * document has its own history that is discarded when its window is
+	 * closed.
+	 *
+	 * @param document
+	 *                open document
+	 * @return the command history of the document
+	 */
+	History getHistory(Document<?> document);
+
 	/**
 	 * Returns the main window presenter.
 	 *
@@ -64,7 +64,6 @@ public class ApplicationImpl implements Application {
 
 	private final MainWindowPresenter mainWindow;
 	private final EventBus eventBus;
-	private final History history;
 	private final RenderingOptions renderingOptions;
 	private final EditingOptions editingOptions;
 	private final LayoutOptions layoutOptions;
@@ -86,6 +85,12 @@ public class ApplicationImpl implements Application {
 	 */
 	private final Map<WindowId, Document<?>> documents;
 
+	/**
+	 * Map from documents to their command histories. Each document in
+	 * {@link #documents} has its own history.
+	 */
+	private final Map<Document<?>, History> histories;
+
 	/**
 	 * Currently focused window id.
 	 */
@@ -95,7 +100,6 @@ public class ApplicationImpl implements Application {
 	public ApplicationImpl(
 			MainWindowPresenter mainWindow,
 			EventBus eventBus,
-			History history,
 			RenderingOptions renderingOptions,
 			EditingOptions editingOptions,
 			LayoutOptions layoutOptions,
@@ -103,8 +107,8 @@ public class ApplicationImpl implements Application {
 			SaveAction saveAction) {
 		this.mainWindow = mainWindow;
 		this.eventBus = eventBus;
-		this.history = history;
 		this.documents = new HashMap<>();
+		this.histories = new HashMap<>();
 		this.renderingOptions = renderingOptions;
 		this.editingOptions = editingOptions;
 		this.layoutOptions = layoutOptions;
@@ -145,7 +149,12 @@ public class ApplicationImpl implements Application {
 			activeWindow = null;
 		}
 		mainWindow.removeWindow(id);
-		documents.remove(id);
+		Document<?> document = documents.remove(id);
+		if (document != null) {
+			// Release the commands right away, even if something
+			// still refers to the history.
+			histories.remove(document).clear();
+		}
 		return true;
 	}
 
@@ -178,7 +187,13 @@ public class ApplicationImpl implements Application {
 
 	@Override
 	public History getHistory() {
-		return history;
+		Document<?> document = getActiveDocument();
+		return (document != null) ? getHistory(document) : null;
+	}
+
+	@Override
+	public History getHistory(Document<?> document) {
+		return histories.get(document);
 	}
 
 	@Override
@@ -209,6 +224,7 @@ public class ApplicationImpl implements Application {
 
 		WindowId id = mainWindow.createDocumentWindowId(document);
 		documents.put(id, document);
+		histories.put(document, new History(this, eventBus, document));
 
 		mainWindow.createDocumentEditorWindow(id, document);
 		mainWindow.showInternalWindow(id);
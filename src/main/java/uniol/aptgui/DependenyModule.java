@@ -27,7 +27,6 @@ import uniol.apt.module.AptModuleRegistry;
 import uniol.apt.module.ModuleRegistry;
 import uniol.apt.ui.ParametersTransformer;
 import uniol.apt.ui.impl.AptParametersTransformer;
-import uniol.aptgui.commands.History;
 import uniol.aptgui.document.EditingOptions;
 import uniol.aptgui.document.RenderingOptions;
 import uniol.aptgui.editor.EditorPresenter;
@@ -79,7 +78,6 @@ public class DependenyModule extends AbstractModule {
 	protected void configure() {
 		// Singletons
 		bind(Application.class).to(ApplicationImpl.class).in(Singleton.class);
-		bind(History.class).in(Singleton.class);
 		bind(EventBus.class).in(Singleton.class);
 		bind(DocumentRendererFactory.class).in(Singleton.class);
 
@@ -19,14 +19,62 @@
 
 package uniol.aptgui.commands;
 
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
 import uniol.aptgui.document.Document;
+import uniol.aptgui.document.graphical.GraphicalElement;
+import uniol.aptgui.document.graphical.edges.GraphicalEdge;
+import uniol.aptgui.document.graphical.nodes.GraphicalNode;
 import uniol.aptgui.editor.layout.Layout;
 
+/**
+ * Command that applies a layout algorithm to a document. Before the layout
+ * runs, all node centers and breakpoints are recorded in packed int arrays.
+ * Afterwards the arrays are turned into differences between the old and the
+ * new positions, so undo adds them to the current positions and redo
+ * subtracts them again without running the layout a second time.
+ */
 public class ApplyLayoutCommand extends Command {
 
 	private final Document<?> document;
 	private final Layout layout;
 
+	private GraphicalNode[] nodes;
+	private GraphicalEdge[] edges;
+
+	/**
+	 * Center differences (old minus new) as x, y pairs per node. For nodes
+	 * in {@link #unplaced} the pair holds the new center instead.
+	 */
+	private int[] centerDeltas;
+
+	/**
+	 * Nodes that had no center before the layout was applied.
+	 */
+	private BitSet unplaced;
+
+	/**
+	 * Start of each edge's breakpoints in {@link #breakpointDeltas}; the
+	 * last entry is the total length.
+	 */
+	private int[] breakpointOffsets;
+
+	/**
+	 * Breakpoint differences (old minus new) as x, y pairs for edges whose
+	 * breakpoint count was not changed by the layout.
+	 */
+	private int[] breakpointDeltas;
+
+	/**
+	 * Breakpoints of edges whose breakpoint count was changed by the
+	 * layout. Holds the positions that are not currently applied and is
+	 * null for all other edges.
+	 */
+	private int[][] swappedBreakpoints;
+
 	public ApplyLayoutCommand(Document<?> document, Layout layout) {
 		this.document = document;
 		this.layout = layout;
@@ -34,18 +82,28 @@ public class ApplyLayoutCommand extends Command {
 
 	@Override
 	public void execute() {
-		document.applyLayout(layout);
+		takeSnapshot();
+		try {
+			document.applyLayout(layout);
+		} catch (RuntimeException e) {
+			restoreSnapshot();
+			document.fireDocumentChanged(true);
+			throw e;
+		}
+		encodeDeltas();
 		document.fireDocumentChanged(true);
 	}
 
 	@Override
 	public void undo() {
-		// Empty
+		applyDeltas(1);
+		document.fireDocumentChanged(true);
 	}
 
 	@Override
-	public boolean canUndo() {
-		return false;
+	public void redo() {
+		applyDeltas(-1);
+		document.fireDocumentChanged(true);
 	}
 
 	@Override
@@ -53,6 +111,177 @@ public class ApplyLayoutCommand extends Command {
 		return "Apply " + layout.getName() + " Layout";
 	}
 
+	@Override
+	public long getEstimatedSize() {
+		if (nodes == null) {
+			return BASE_SIZE;
+		}
+		long size = BASE_SIZE + 8L * (nodes.length + edges.length);
+		size += 4L * (centerDeltas.length + breakpointOffsets.length + breakpointDeltas.length);
+		for (int[] swapped : swappedBreakpoints) {
+			if (swapped != null) {
+				size += 16 + 4L * swapped.length;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Records the absolute positions of all nodes and breakpoints.
+	 */
+	private void takeSnapshot() {
+		List<GraphicalNode> nodeList = new ArrayList<>();
+		List<GraphicalEdge> edgeList = new ArrayList<>();
+		for (GraphicalElement elem : document.getGraphicalElements()) {
+			if (elem instanceof GraphicalNode) {
+				nodeList.add((GraphicalNode) elem);
+			} else if (elem instanceof GraphicalEdge) {
+				edgeList.add((GraphicalEdge) elem);
+			}
+		}
+		nodes = nodeList.toArray(new GraphicalNode[nodeList.size()]);
+		edges = edgeList.toArray(new GraphicalEdge[edgeList.size()]);
+
+		centerDeltas = new int[2 * nodes.length];
+		unplaced = new BitSet(nodes.length);
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i].getCenter() == null) {
+				unplaced.set(i);
+			} else {
+				centerDeltas[2 * i] = nodes[i].getCenterX();
+				centerDeltas[2 * i + 1] = nodes[i].getCenterY();
+			}
+		}
+
+		breakpointOffsets = new int[edges.length + 1];
+		for (int i = 0; i < edges.length; i++) {
+			breakpointOffsets[i + 1] = breakpointOffsets[i] + 2 * edges[i].getBreakpointCount();
+		}
+		breakpointDeltas = new int[breakpointOffsets[edges.length]];
+		for (int i = 0; i < edges.length; i++) {
+			int offset = breakpointOffsets[i];
+			for (Point bp : edges[i].getBreakpoints()) {
+				breakpointDeltas[offset++] = bp.x;
+				breakpointDeltas[offset++] = bp.y;
+			}
+		}
+		swappedBreakpoints = new int[edges.length][];
+	}
+
+	/**
+	 * Moves all nodes and breakpoints back to the positions recorded by
+	 * {@link #takeSnapshot()}.
+	 */
+	private void restoreSnapshot() {
+		for (int i = 0; i < nodes.length; i++) {
+			if (unplaced.get(i)) {
+				nodes[i].setCenter(null);
+			} else {
+				nodes[i].setCenter(new Point(centerDeltas[2 * i], centerDeltas[2 * i + 1]));
+			}
+		}
+		for (int i = 0; i < edges.length; i++) {
+			setBreakpoints(edges[i], breakpointDeltas, breakpointOffsets[i], breakpointOffsets[i + 1]);
+		}
+	}
+
+	/**
+	 * Replaces the recorded absolute positions by their differences to the
+	 * positions the layout produced. Edges whose breakpoint count changed
+	 * keep their old breakpoints as absolute positions.
+	 */
+	private void encodeDeltas() {
+		for (int i = 0; i < nodes.length; i++) {
+			Point center = nodes[i].getCenter();
+			if (unplaced.get(i)) {
+				if (center != null) {
+					centerDeltas[2 * i] = center.x;
+					centerDeltas[2 * i + 1] = center.y;
+				} else {
+					// Still unplaced, nothing to restore.
+					unplaced.clear(i);
+				}
+			} else if (center == null) {
+				// Layouts do not remove positions; keep the old one.
+				nodes[i].setCenter(new Point(centerDeltas[2 * i], centerDeltas[2 * i + 1]));
+				centerDeltas[2 * i] = 0;
+				centerDeltas[2 * i + 1] = 0;
+			} else {
+				centerDeltas[2 * i] -= center.x;
+				centerDeltas[2 * i + 1] -= center.y;
+			}
+		}
+		for (int i = 0; i < edges.length; i++) {
+			int start = breakpointOffsets[i];
+			int end = breakpointOffsets[i + 1];
+			if (edges[i].getBreakpointCount() * 2 != end - start) {
+				int[] old = new int[end - start];
+				System.arraycopy(breakpointDeltas, start, old, 0, old.length);
+				// Zero differences make the packed entries no-ops.
+				for (int j = start; j < end; j++) {
+					breakpointDeltas[j] = 0;
+				}
+				swappedBreakpoints[i] = old;
+				continue;
+			}
+			int offset = start;
+			for (Point bp : edges[i].getBreakpoints()) {
+				breakpointDeltas[offset++] -= bp.x;
+				breakpointDeltas[offset++] -= bp.y;
+			}
+		}
+	}
+
+	/**
+	 * Adds the recorded differences multiplied by the given sign to all
+	 * positions and exchanges the breakpoints of edges whose breakpoint
+	 * count was changed by the layout.
+	 *
+	 * @param sign
+	 *                1 to restore the old positions, -1 to restore the
+	 *                positions produced by the layout
+	 */
+	private void applyDeltas(int sign) {
+		for (int i = 0; i < nodes.length; i++) {
+			int dx = centerDeltas[2 * i];
+			int dy = centerDeltas[2 * i + 1];
+			if (unplaced.get(i)) {
+				nodes[i].setCenter((sign > 0) ? null : new Point(dx, dy));
+			} else if (dx != 0 || dy != 0) {
+				nodes[i].translate(sign * dx, sign * dy);
+			}
+		}
+		for (int i = 0; i < edges.length; i++) {
+			GraphicalEdge edge = edges[i];
+			if (swappedBreakpoints[i] != null) {
+				int[] current = new int[2 * edge.getBreakpointCount()];
+				int offset = 0;
+				for (Point bp : edge.getBreakpoints()) {
+					current[offset++] = bp.x;
+					current[offset++] = bp.y;
+				}
+				setBreakpoints(edge, swappedBreakpoints[i], 0, swappedBreakpoints[i].length);
+				swappedBreakpoints[i] = current;
+				continue;
+			}
+			int offset = breakpointOffsets[i];
+			for (int j = 0; offset < breakpointOffsets[i + 1]; j++, offset += 2) {
+				int dx = breakpointDeltas[offset];
+				int dy = breakpointDeltas[offset + 1];
+				if (dx != 0 || dy != 0) {
+					edge.translateBreakpoint(j, sign * dx, sign * dy);
+				}
+			}
+		}
+	}
+
+	private static void setBreakpoints(GraphicalEdge edge, int[] coordinates, int start, int end) {
+		edge.removeAllBreakpoints();
+		for (int i = start; i < end; i += 2) {
+			edge.addBreakpoint(new Point(coordinates[i], coordinates[i + 1]));
+		}
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -21,6 +21,24 @@ package uniol.aptgui.commands;
 
 public abstract class Command {
 
+	/**
+	 * Rough number of bytes that a command occupies by itself.
+	 */
+	protected static final long BASE_SIZE = 64;
+
+	/**
+	 * Rough number of bytes that each element or value referenced by a
+	 * command accounts for, e.g. an entry in a set or list.
+	 */
+	protected static final long REFERENCE_SIZE = 48;
+
+	/**
+	 * Rough number of bytes that each removed element accounts for. Such
+	 * elements are only kept alive by the command, together with their
+	 * graphical counterpart and extensions.
+	 */
+	protected static final long REMOVED_ELEMENT_SIZE = 1024;
+
 	/**
 	 * Returns the Command's user-readable name.
 	 *
@@ -52,6 +70,31 @@ public abstract class Command {
 		return true;
 	}
 
+	/**
+	 * Returns an estimate of the memory in bytes that this Command keeps
+	 * alive while it is part of the history. Subclasses that store
+	 * collections of elements or old values should overwrite this method.
+	 *
+	 * @return estimated size in bytes
+	 */
+	public long getEstimatedSize() {
+		return BASE_SIZE;
+	}
+
+	/**
+	 * Tries to merge the given command, which was executed right after this
+	 * one, into this command. If this returns true, this command must
+	 * afterwards undo and redo the effects of both commands and the given
+	 * command is discarded. By default commands are not merged.
+	 *
+	 * @param next
+	 *                command that was executed after this one
+	 * @return true if the command was merged into this one
+	 */
+	public boolean tryMerge(Command next) {
+		return false;
+	}
+
 	public void redo() {
 		execute();
 	}
@@ -74,6 +74,15 @@ public class CompoundCommand extends Command {
 		subCommands.add(command);
 	}
 
+	@Override
+	public long getEstimatedSize() {
+		long size = BASE_SIZE;
+		for (Command cmd : subCommands) {
+			size += cmd.getEstimatedSize();
+		}
+		return size;
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -19,10 +19,13 @@
 
 package uniol.aptgui.commands;
 
+import uniol.apt.adt.pn.Flow;
 import uniol.apt.adt.pn.Marking;
 import uniol.apt.adt.pn.PetriNet;
 import uniol.apt.adt.pn.Transition;
+import uniol.aptgui.document.Document;
 import uniol.aptgui.document.PnDocument;
+import uniol.aptgui.document.graphical.GraphicalElement;
 import uniol.aptgui.document.graphical.nodes.GraphicalTransition;
 
 public class FireTransitionCommand extends Command {
@@ -46,6 +49,7 @@ public class FireTransitionCommand extends Command {
 		assert transition.isFireable(oldMarking);
 		Marking newMarking = transition.fire(oldMarking);
 		pn.setInitialMarking(newMarking);
+		updateAdjacentPlaces();
 
 		pnDocument.fireDocumentChanged(true);
 	}
@@ -54,10 +58,25 @@ public class FireTransitionCommand extends Command {
 	public void undo() {
 		PetriNet pn = pnDocument.getModel();
 		pn.setInitialMarking(oldMarking);
+		updateAdjacentPlaces();
 
 		pnDocument.fireDocumentChanged(true);
 	}
 
+	/**
+	 * Updates the token count of all places whose marking may have been
+	 * changed by firing the transition.
+	 */
+	private void updateAdjacentPlaces() {
+		PetriNet pn = pnDocument.getModel();
+		for (Flow flow : pn.getPresetEdges(transition)) {
+			pnDocument.updateGraphicalElement(Document.<GraphicalElement>getGraphicalExtension(flow.getSource()));
+		}
+		for (Flow flow : pn.getPostsetEdges(transition)) {
+			pnDocument.updateGraphicalElement(Document.<GraphicalElement>getGraphicalExtension(flow.getTarget()));
+		}
+	}
+
 	@Override
 	public String getName() {
 		return "Fire Transition";
@@ -18,30 +18,166 @@
 
 package uniol.aptgui.commands;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.Timer;
 
 import com.google.common.eventbus.EventBus;
-import com.google.inject.Inject;
 
 import uniol.aptgui.Application;
+import uniol.aptgui.document.Document;
 import uniol.aptgui.events.HistoryChangedEvent;
 
 /**
- * History class that allows to undo and redo commands.
+ * History class that allows to undo and redo commands. The memory that the
+ * commands keep alive is estimated with {@link Command#getEstimatedSize()}.
+ * Once the estimate exceeds the memory budget, the oldest commands are removed
+ * from the history and cannot be undone anymore.
+ * <p>
+ * If the history belongs to a document, commands are executed, undone and
+ * redone inside a transaction of that document, so that listeners are
+ * notified only once per command, no matter how many elements it touches.
+ * <p>
+ * Commands that are executed in quick succession are coalesced into one entry
+ * if the previous command accepts them through {@link Command#tryMerge(Command)},
+ * e.g. repeated clicks that modify the tokens of the same place. Change events
+ * for such merges are delayed and posted once the burst of commands ends.
  */
 public class History {
 
+	/**
+	 * Memory budget used if no other budget is set: 64 MiB.
+	 */
+	public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+	/**
+	 * Maximum time in milliseconds between the first and the last command
+	 * of a run of merged commands, if no other window is set.
+	 */
+	public static final long DEFAULT_MERGE_WINDOW = 1000;
+
+	/**
+	 * Delay in milliseconds after the last merge before the change event
+	 * is posted.
+	 */
+	private static final int MERGE_EVENT_DELAY = 250;
+
 	private final Application application;
 	private final EventBus eventBus;
+	private final Document<?> document;
+	private final Timer mergeEventTimer;
 
-	private List<Command> executedCommands = new ArrayList<Command>();
-	private int currentCommandIndex = -1;
+	/**
+	 * Commands that can be undone, the most recent one first.
+	 */
+	private Deque<Entry> undoCommands = new ArrayDeque<>();
+
+	/**
+	 * Commands that can be redone, the next one first.
+	 */
+	private Deque<Entry> redoCommands = new ArrayDeque<>();
+
+	private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+	private long undoSize;
+	private long redoSize;
+
+	private long mergeWindow = DEFAULT_MERGE_WINDOW;
+
+	/**
+	 * True if the most recent command was added by {@link #execute(Command)}
+	 * and nothing happened since then that prevents merging.
+	 */
+	private boolean mergeable;
+
+	/**
+	 * Time at which the first command of the current run of merged
+	 * commands was executed. The merge window is measured from here, so
+	 * that a steady stream of edits does not coalesce forever.
+	 */
+	private long mergeRunStart;
 
-	@Inject
-	public History(Application application, EventBus eventBus) {
+	/**
+	 * Creates a history for the commands of the given document.
+	 *
+	 * @param application
+	 *                application used to report exceptions
+	 * @param eventBus
+	 *                event bus that history changes are posted to
+	 * @param document
+	 *                document whose transactions wrap the commands or
+	 *                null
+	 */
+	public History(Application application, EventBus eventBus, Document<?> document) {
 		this.application = application;
 		this.eventBus = eventBus;
+		this.document = document;
+		this.mergeEventTimer = new Timer(MERGE_EVENT_DELAY, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				fireHistoryChanged();
+			}
+		});
+		this.mergeEventTimer.setRepeats(false);
+	}
+
+	/**
+	 * Returns the maximum time between the first and the last command of a
+	 * run of merged commands.
+	 *
+	 * @return merge window in milliseconds
+	 */
+	public long getMergeWindow() {
+		return mergeWindow;
+	}
+
+	/**
+	 * Sets the maximum time between the first and the last command of a run
+	 * of merged commands.
+	 *
+	 * @param mergeWindow
+	 *                merge window in milliseconds; 0 disables merging
+	 */
+	public void setMergeWindow(long mergeWindow) {
+		this.mergeWindow = mergeWindow;
+	}
+
+	/**
+	 * Returns the memory budget of this history.
+	 *
+	 * @return budget in bytes
+	 */
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/**
+	 * Sets the memory budget of this history. If the commands in the
+	 * history exceed the new budget, the oldest ones are removed
+	 * immediately. The most recent command is always kept so that it can
+	 * be undone.
+	 *
+	 * @param memoryBudget
+	 *                budget in bytes
+	 */
+	public void setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		if (evict()) {
+			fireHistoryChanged();
+		}
+	}
+
+	/**
+	 * Returns the estimated number of bytes kept alive by all commands in
+	 * this history.
+	 *
+	 * @return estimated size in bytes
+	 */
+	public long getEstimatedSize() {
+		return undoSize + redoSize;
 	}
 
 	/**
@@ -51,16 +187,25 @@ public class History {
 	 *                command to be executed
 	 */
 	public void execute(Command command) {
+		beginTransaction();
 		try {
 			command.execute();
 
 			// Only modify history if the command can be undone.
 			if (command.canUndo()) {
-				addToHistory(command);
-				eventBus.post(new HistoryChangedEvent(this));
+				if (tryMerge(command)) {
+					mergeEventTimer.restart();
+				} else {
+					addToHistory(command);
+					fireHistoryChanged();
+					mergeRunStart = System.nanoTime();
+				}
+				mergeable = true;
 			}
 		} catch (Exception ex) {
 			application.getMainWindow().showException("Command Exception", ex);
+		} finally {
+			endTransaction();
 		}
 	}
 
@@ -76,55 +221,108 @@ public class History {
 	 *                command to be executed
 	 */
 	public void mergeExecute(String compoundName, Command command) {
-		if (executedCommands.isEmpty()) {
+		if (undoCommands.isEmpty()) {
 			CompoundCommand compoundCmd = new CompoundCommand(compoundName);
 			compoundCmd.addCommand(command);
 			execute(compoundCmd);
 			return;
 		}
 
+		beginTransaction();
 		try {
 			command.execute();
 
 			// Only modify history if the command can be undone.
 			if (command.canUndo()) {
-				addToHistory(command);
-
+				Entry prev = undoCommands.pop();
+				undoSize -= prev.size;
 				CompoundCommand compoundCmd = null;
-				Command curr = executedCommands.remove(executedCommands.size() - 1);
-				Command prev = executedCommands.remove(executedCommands.size() - 1);
-				if (prev instanceof CompoundCommand) {
-					compoundCmd = (CompoundCommand) prev;
-					compoundCmd.addCommand(curr);
+				if (prev.command instanceof CompoundCommand) {
+					compoundCmd = (CompoundCommand) prev.command;
+					compoundCmd.addCommand(command);
 				} else {
 					compoundCmd = new CompoundCommand(compoundName);
-					compoundCmd.addCommand(prev);
-					compoundCmd.addCommand(curr);
+					compoundCmd.addCommand(prev.command);
+					compoundCmd.addCommand(command);
 				}
-				executedCommands.add(compoundCmd);
-				currentCommandIndex = executedCommands.size() - 1;
-				eventBus.post(new HistoryChangedEvent(this));
+				addToHistory(compoundCmd);
+				fireHistoryChanged();
+				mergeable = false;
 			}
 		} catch (Exception ex) {
 			application.getMainWindow().showException("Command Exception", ex);
+		} finally {
+			endTransaction();
 		}
 	}
 
+	/**
+	 * Merges the given command into the most recent one if it was executed
+	 * within the merge window after the first command of the current run
+	 * and the most recent command accepts it.
+	 *
+	 * @param command
+	 *                command that was just executed
+	 * @return true if the command was merged
+	 */
+	private boolean tryMerge(Command command) {
+		if (!mergeable || undoCommands.isEmpty() || !redoCommands.isEmpty()) {
+			return false;
+		}
+		if (System.nanoTime() - mergeRunStart > TimeUnit.MILLISECONDS.toNanos(mergeWindow)) {
+			return false;
+		}
+		Entry top = undoCommands.peek();
+		if (!top.command.tryMerge(command)) {
+			return false;
+		}
+		// The merged command may have a different size.
+		undoCommands.pop();
+		undoSize -= top.size;
+		addToHistory(top.command);
+		return true;
+	}
 
 	/**
 	 * Adds the given command to the history. All commands that were
-	 * previously undone cannot be redone after this method call.
+	 * previously undone cannot be redone after this method call. The
+	 * oldest commands are removed if the memory budget is exceeded.
 	 *
 	 * @param command
 	 *                command to add
 	 */
 	private void addToHistory(Command command) {
-		List<Command> notRedoneCommandsView = executedCommands.subList(currentCommandIndex + 1,
-				executedCommands.size());
-		List<Command> notRedoneCommands = new ArrayList<>(notRedoneCommandsView);
-		executedCommands.removeAll(notRedoneCommands);
-		executedCommands.add(command);
-		currentCommandIndex = executedCommands.size() - 1;
+		if (!redoCommands.isEmpty()) {
+			// Dropping the whole deque is cheaper than removing the
+			// commands one by one.
+			redoCommands = new ArrayDeque<>();
+			redoSize = 0;
+		}
+		Entry entry = new Entry(command);
+		undoCommands.push(entry);
+		undoSize += entry.size;
+		evict();
+	}
+
+	/**
+	 * Removes the oldest commands until the memory budget is met. The
+	 * commands that can be redone are removed first since they are the
+	 * least likely to be needed again. The most recent command is always
+	 * kept.
+	 *
+	 * @return true if any command was removed
+	 */
+	private boolean evict() {
+		boolean evicted = false;
+		while (getEstimatedSize() > memoryBudget && !redoCommands.isEmpty()) {
+			redoSize -= redoCommands.removeLast().size;
+			evicted = true;
+		}
+		while (getEstimatedSize() > memoryBudget && undoCommands.size() > 1) {
+			undoSize -= undoCommands.removeLast().size;
+			evicted = true;
+		}
+		return evicted;
 	}
 
 	/**
@@ -132,10 +330,19 @@ public class History {
 	 */
 	public void undo() {
 		if (canUndo()) {
-			Command command = executedCommands.get(currentCommandIndex);
-			command.undo();
-			currentCommandIndex--;
-			eventBus.post(new HistoryChangedEvent(this));
+			Entry entry = undoCommands.peek();
+			beginTransaction();
+			try {
+				entry.command.undo();
+			} finally {
+				endTransaction();
+			}
+			undoCommands.pop();
+			redoCommands.push(entry);
+			mergeable = false;
+			undoSize -= entry.size;
+			redoSize += entry.size;
+			fireHistoryChanged();
 		}
 	}
 
@@ -144,10 +351,19 @@ public class History {
 	 */
 	public void redo() {
 		if (canRedo()) {
-			Command command = executedCommands.get(currentCommandIndex + 1);
-			command.redo();
-			currentCommandIndex++;
-			eventBus.post(new HistoryChangedEvent(this));
+			Entry entry = redoCommands.peek();
+			beginTransaction();
+			try {
+				entry.command.redo();
+			} finally {
+				endTransaction();
+			}
+			redoCommands.pop();
+			undoCommands.push(entry);
+			mergeable = false;
+			redoSize -= entry.size;
+			undoSize += entry.size;
+			fireHistoryChanged();
 		}
 	}
 
@@ -157,7 +373,7 @@ public class History {
 	 * @return true if undo action is possible otherwise false
 	 */
 	public boolean canUndo() {
-		return currentCommandIndex != -1;
+		return !undoCommands.isEmpty();
 	}
 
 	/**
@@ -166,15 +382,20 @@ public class History {
 	 * @return true if redo action is possible otherwise false
 	 */
 	public boolean canRedo() {
-		return currentCommandIndex < executedCommands.size() - 1;
+		return !redoCommands.isEmpty();
 	}
 
 	/**
-	 * Clears the history.
+	 * Clears the history. A change event that is still delayed because of
+	 * a merge is dropped.
 	 */
 	public void clear() {
-		executedCommands = new ArrayList<Command>();
-		currentCommandIndex = -1;
+		mergeEventTimer.stop();
+		undoCommands = new ArrayDeque<>();
+		redoCommands = new ArrayDeque<>();
+		undoSize = 0;
+		mergeable = false;
+		redoSize = 0;
 	}
 
 	/**
@@ -183,7 +404,7 @@ public class History {
 	 * @return the Command or null if undo is impossible
 	 */
 	public Command getNextUndoCommand() {
-		return canUndo() ? executedCommands.get(currentCommandIndex) : null;
+		return canUndo() ? undoCommands.peek().command : null;
 	}
 
 	/**
@@ -192,7 +413,43 @@ public class History {
 	 * @return the Command or null if redo is impossible
 	 */
 	public Command getNextRedoCommand() {
-		return canRedo() ? executedCommands.get(currentCommandIndex + 1) : null;
+		return canRedo() ? redoCommands.peek().command : null;
+	}
+
+	/**
+	 * Posts a change event right away and cancels any delayed one.
+	 */
+	private void fireHistoryChanged() {
+		mergeEventTimer.stop();
+		eventBus.post(new HistoryChangedEvent(this));
+	}
+
+	private void beginTransaction() {
+		if (document != null) {
+			document.beginTransaction();
+		}
+	}
+
+	private void endTransaction() {
+		if (document != null) {
+			document.endTransaction();
+		}
+	}
+
+	/**
+	 * Command in the history together with its size estimate at the time
+	 * it was added, so that the same amount is subtracted on removal.
+	 */
+	private static class Entry {
+		private final Command command;
+		private final long size;
+
+		private Entry(Command command) {
+			this.command = command;
+			this.size = command.getEstimatedSize();
+		}
 	}
 
 }
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -32,7 +32,7 @@ public class ModifyTokensCommand extends Command {
 	private final PnDocument pnDocument;
 	private final GraphicalPlace graphicalPlace;
 	private final Place place;
-	private final long modification;
+	private long modification;
 
 	public ModifyTokensCommand(PnDocument pnDocument, GraphicalPlace graphicalPlace, long modification) {
 		this.pnDocument = pnDocument;
@@ -45,7 +45,7 @@ public class ModifyTokensCommand extends Command {
 	public void execute() {
 		long newValue = place.getInitialToken().getValue() + modification;
 		place.setInitialToken(newValue);
-		graphicalPlace.setTokens(newValue);
+		pnDocument.updateGraphicalElement(graphicalPlace);
 		pnDocument.fireDocumentChanged(true);
 	}
 
@@ -53,10 +53,30 @@ public class ModifyTokensCommand extends Command {
 	public void undo() {
 		long newValue = place.getInitialToken().getValue() - modification;
 		place.setInitialToken(newValue);
-		graphicalPlace.setTokens(newValue);
+		pnDocument.updateGraphicalElement(graphicalPlace);
 		pnDocument.fireDocumentChanged(true);
 	}
 
+	/**
+	 * Merges consecutive modifications of the same place unless they cancel
+	 * each other out, which would leave a history entry that does nothing.
+	 */
+	@Override
+	public boolean tryMerge(Command next) {
+		if (!(next instanceof ModifyTokensCommand)) {
+			return false;
+		}
+		ModifyTokensCommand other = (ModifyTokensCommand) next;
+		if (other.pnDocument != pnDocument || other.graphicalPlace != graphicalPlace) {
+			return false;
+		}
+		if (modification + other.modification == 0) {
+			return false;
+		}
+		modification += other.modification;
+		return true;
+	}
+
 	@Override
 	public String getName() {
 		return "Modify Token Count by " + modification;
@@ -57,6 +57,12 @@ public class RemoveAllBreakpointsCommand extends Command {
 		document.fireDocumentChanged(true);
 	}
 
+	@Override
+	public long getEstimatedSize() {
+		int count = (oldBreakpoints != null) ? oldBreakpoints.size() : 0;
+		return BASE_SIZE + count * REFERENCE_SIZE;
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
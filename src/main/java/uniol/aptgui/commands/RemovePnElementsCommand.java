@@ -140,6 +140,12 @@ public class RemovePnElementsCommand extends Command {
 		return "Remove";
 	}
 
+	@Override
+	public long getEstimatedSize() {
+		return BASE_SIZE + elements.size() * REFERENCE_SIZE
+				+ (removedFlows.size() + removedNodes.size()) * REMOVED_ELEMENT_SIZE;
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
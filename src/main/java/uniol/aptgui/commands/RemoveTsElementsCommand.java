@@ -108,6 +108,7 @@ public class RemoveTsElementsCommand extends Command {
 
 			if (entry.getValue().isInitialState()) {
 				model.setInitialState(state);
+				document.updateGraphicalElement(entry.getValue());
 			}
 		}
 
@@ -132,6 +133,12 @@ public class RemoveTsElementsCommand extends Command {
 		return "Remove";
 	}
 
+	@Override
+	public long getEstimatedSize() {
+		return BASE_SIZE + elements.size() * REFERENCE_SIZE
+				+ (removedArcs.size() + removedStates.size()) * REMOVED_ELEMENT_SIZE;
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
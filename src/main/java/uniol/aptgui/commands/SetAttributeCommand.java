@@ -68,6 +68,7 @@ public abstract class SetAttributeCommand<T, U> extends Command {
 		Object modelElem = document.getAssociatedModelElement((GraphicalElement) elem);
 		try {
 			modelElem.getClass().getMethod(setter, getModelAttributeClass()).invoke(modelElem, arg);
+			document.updateGraphicalElement((GraphicalElement) elem);
 		} catch (Exception e) {
 			String errMsg = String.format("%s#%s could not be invoked.", modelElem.getClass().getName(),
 					setter);
@@ -83,6 +84,12 @@ public abstract class SetAttributeCommand<T, U> extends Command {
 		document.fireDocumentChanged(true);
 	}
 
+	@Override
+	public long getEstimatedSize() {
+		// Elements and old values
+		return BASE_SIZE + 2 * elements.size() * REFERENCE_SIZE;
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -69,6 +69,12 @@ public class SetColorCommand extends Command {
 		document.fireDocumentChanged(true);
 	}
 
+	@Override
+	public long getEstimatedSize() {
+		// Selection and old colors
+		return BASE_SIZE + 2 * selection.size() * REFERENCE_SIZE;
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -22,6 +22,7 @@ package uniol.aptgui.commands;
 import uniol.apt.adt.exception.StructureException;
 import uniol.apt.adt.ts.State;
 import uniol.apt.adt.ts.TransitionSystem;
+import uniol.aptgui.document.Document;
 import uniol.aptgui.document.TsDocument;
 import uniol.aptgui.document.graphical.nodes.GraphicalState;
 
@@ -50,6 +51,7 @@ public class SetInitialStateCommand extends Command {
 		}
 		State newInitialState = document.getAssociatedModelElement(element);
 		ts.setInitialState(newInitialState);
+		updateStates();
 		document.fireDocumentChanged(true);
 	}
 
@@ -57,9 +59,20 @@ public class SetInitialStateCommand extends Command {
 	public void undo() {
 		TransitionSystem ts = document.getModel();
 		ts.setInitialState(previousInitialState);
+		updateStates();
 		document.fireDocumentChanged(true);
 	}
 
+	/**
+	 * Updates the graphical states whose initial state flag changes.
+	 */
+	private void updateStates() {
+		document.updateGraphicalElement(element);
+		if (previousInitialState != null) {
+			document.updateGraphicalElement(Document.<GraphicalState>getGraphicalExtension(previousInitialState));
+		}
+	}
+
 	@Override
 	public boolean canUndo() {
 		return previousInitialState != null;
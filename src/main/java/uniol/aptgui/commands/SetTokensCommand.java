@@ -69,6 +69,9 @@ public class SetTokensCommand extends Command {
 			marking = marking.setTokenCount(place, Token.valueOf(newTokenCount));
 		}
 		document.getModel().setInitialMarking(marking);
+		for (GraphicalPlace graphicalPlace : elements) {
+			document.updateGraphicalElement(graphicalPlace);
+		}
 		document.fireDocumentChanged(true);
 	}
 
@@ -82,6 +85,9 @@ public class SetTokensCommand extends Command {
 			marking = marking.setTokenCount(place, Token.valueOf(oldTokenCount));
 		}
 		document.getModel().setInitialMarking(marking);
+		for (GraphicalPlace graphicalPlace : elements) {
+			document.updateGraphicalElement(graphicalPlace);
+		}
 		document.fireDocumentChanged(true);
 	}
 
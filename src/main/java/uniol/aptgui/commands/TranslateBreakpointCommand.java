@@ -136,11 +136,31 @@ public class TranslateBreakpointCommand extends Command {
 	 *                y-axis translation
 	 */
 	private void applyTranslation(int dx, int dy) {
-		Point bp = edge.getBreakpoint(breakpointIndex);
-		bp.translate(dx, dy);
+		edge.translateBreakpoint(breakpointIndex, dx, dy);
 		document.fireDocumentChanged(true);
 	}
 
+	/**
+	 * Merges consecutive translations of the same breakpoint, as long as
+	 * this translation did not remove an unnecessary breakpoint.
+	 */
+	@Override
+	public boolean tryMerge(Command next) {
+		if (!(next instanceof TranslateBreakpointCommand)) {
+			return false;
+		}
+		TranslateBreakpointCommand other = (TranslateBreakpointCommand) next;
+		if (other.document != document || other.edge != edge || other.breakpointIndex != breakpointIndex
+				|| removedBreakpointIndex >= 0) {
+			return false;
+		}
+		deltaX += other.deltaX;
+		deltaY += other.deltaY;
+		removedBreakpointIndex = other.removedBreakpointIndex;
+		removedBreakpoint = other.removedBreakpoint;
+		return true;
+	}
+
 	@Override
 	public String getName() {
 		return "Translate Breakpoint";
@@ -19,6 +19,7 @@
 
 package uniol.aptgui.commands;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -44,6 +45,15 @@ public class TranslateElementsCommand extends Command {
 		this.deltaY = 0;
 	}
 
+	/**
+	 * Returns the elements that are translated by this command.
+	 *
+	 * @return unmodifiable set of elements
+	 */
+	public Set<GraphicalElement> getElements() {
+		return Collections.unmodifiableSet(elements);
+	}
+
 	/**
 	 * Returns true if the translation value is 0 on both axes.
 	 *
@@ -113,6 +123,11 @@ public class TranslateElementsCommand extends Command {
 		document.fireDocumentChanged(true);
 	}
 
+	@Override
+	public long getEstimatedSize() {
+		return BASE_SIZE + elements.size() * REFERENCE_SIZE;
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
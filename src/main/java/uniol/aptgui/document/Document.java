@@ -22,18 +22,23 @@ package uniol.aptgui.document;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import uniol.apt.adt.extension.IExtensible;
 import uniol.aptgui.document.graphical.GraphicalElement;
+import uniol.aptgui.document.graphical.GraphicalElementListener;
+import uniol.aptgui.document.graphical.TextLayoutCache;
 import uniol.aptgui.document.graphical.edges.GraphicalEdge;
 import uniol.aptgui.document.graphical.nodes.GraphicalNode;
 import uniol.aptgui.editor.layout.Layout;
@@ -63,6 +68,29 @@ import uniol.aptgui.io.FileType;
  */
 public abstract class Document<T> {
 
+	/**
+	 * Distance in model coordinates by which visible and damaged areas are
+	 * enlarged, so that labels, arrowheads and selection markers which
+	 * reach beyond an element's bounds are still drawn.
+	 */
+	private static final int DRAWING_MARGIN = 50;
+
+	/**
+	 * Profiler section for batched edge drawing.
+	 */
+	public static final String EDGES_SECTION = "Edges";
+
+	/**
+	 * Profiler section for elements without model element, e.g. the
+	 * selection frame.
+	 */
+	public static final String VISUAL_ELEMENTS_SECTION = "Visual Elements";
+
+	/**
+	 * Profiler section for elements shown by the drag preview.
+	 */
+	public static final String DRAG_PREVIEW_SECTION = "Drag Preview";
+
 	/**
 	 * List of DocumentListeners.
 	 */
@@ -90,6 +118,166 @@ public abstract class Document<T> {
 	 */
 	private final Selection selection;
 
+	/**
+	 * Spatial index over all GraphicalElements that have associated model
+	 * elements. Used to speed up hit-testing.
+	 */
+	private final SpatialIndex spatialIndex;
+
+	/**
+	 * Elements that changed since the spatial index and the damaged area
+	 * were last brought up to date.
+	 */
+	private final Set<GraphicalElement> changedElements;
+
+	/**
+	 * Nodes that moved since the spatial index was last brought up to
+	 * date. Edges connected to these nodes have to be re-indexed as well.
+	 */
+	private final Set<GraphicalNode> movedNodes;
+
+	/**
+	 * Edges with model element indexed by their source node.
+	 */
+	private final Map<GraphicalNode, List<GraphicalEdge>> outgoingEdges;
+
+	/**
+	 * Edges with model element indexed by their target node.
+	 */
+	private final Map<GraphicalNode, List<GraphicalEdge>> incomingEdges;
+
+	/**
+	 * Bounds of the GraphicalElements without model element at the time
+	 * they were last brought up to date.
+	 */
+	private final Map<GraphicalElement, Rectangle> visualBounds;
+
+	/**
+	 * Area in model coordinates that needs to be redrawn because elements
+	 * changed since listeners were last informed. Null if nothing changed.
+	 */
+	private Rectangle damagedArea;
+
+	/**
+	 * Copy of the viewport at the time listeners were last informed about
+	 * a redraw.
+	 */
+	private Viewport lastDrawnViewport;
+
+	/**
+	 * Elements that are being dragged by the user although they are not
+	 * selected.
+	 */
+	private final Set<GraphicalElement> draggedElements;
+
+	/**
+	 * Preview of elements that are translated by the user or null.
+	 */
+	private DragPreview dragPreview;
+
+	/**
+	 * Cache of laid out labels shared by all elements of this document.
+	 */
+	private final TextLayoutCache textLayoutCache = new TextLayoutCache();
+
+	/**
+	 * Profiler that records drawing times or null.
+	 */
+	private PaintProfiler paintProfiler;
+
+	/**
+	 * Reusable batch for drawing edges.
+	 */
+	private final EdgeBatch edgeBatch = new EdgeBatch();
+
+	/**
+	 * Reusable list of elements that are drawn after the edges.
+	 */
+	private final List<GraphicalElement> deferredElements = new ArrayList<>();
+
+	/**
+	 * Revision of the static layer, see {@link #getRevision()}.
+	 */
+	private long revision;
+
+	/**
+	 * Counter that increases whenever an element with model element is
+	 * added, removed or changes its geometry.
+	 */
+	private long geometryRevision;
+
+	/**
+	 * Bounding box of all elements with model element or null if it
+	 * needs to be recomputed.
+	 */
+	private Rectangle bounds;
+
+	/**
+	 * Elements with model element that lack the layout information needed
+	 * to draw them.
+	 */
+	private final Set<GraphicalElement> undrawableElements;
+
+	/**
+	 * Buffer used for hit-testing or null if it is disabled.
+	 */
+	private PickingBuffer pickingBuffer;
+
+	/**
+	 * Reusable set of elements that are visible during a draw call.
+	 */
+	private final Set<GraphicalElement> visibleElements;
+
+	/**
+	 * Number of elements that were skipped during the last draw call
+	 * because they were outside of the visible area.
+	 */
+	private int culledElementCount;
+
+	/**
+	 * Listener that is registered with every GraphicalElement of this
+	 * document.
+	 */
+	private final GraphicalElementListener elementListener = new GraphicalElementListener() {
+		@Override
+		public void onGeometryChanged(GraphicalElement elem) {
+			changedElements.add(elem);
+			if (elem instanceof GraphicalNode) {
+				movedNodes.add((GraphicalNode) elem);
+			}
+			if (elements.containsKey(elem)) {
+				geometryRevision++;
+				bounds = null;
+				updateDrawable(elem);
+			}
+			if (!isOverlayElement(elem)) {
+				increaseRevision();
+			}
+		}
+
+		@Override
+		public void onAppearanceChanged(GraphicalElement elem) {
+			changedElements.add(elem);
+			if (!isOverlayElement(elem)) {
+				increaseRevision();
+			}
+		}
+
+		@Override
+		public void onHighlightChanged(GraphicalElement elem) {
+			// Highlights are only drawn by the overlay layer.
+			changedElements.add(elem);
+		}
+
+		@Override
+		public void onEdgeNodesChanged(GraphicalEdge edge, GraphicalNode oldSource, GraphicalNode oldTarget) {
+			if (elements.containsKey(edge)) {
+				removeIncidence(edge, oldSource, oldTarget);
+				addIncidence(edge, edge.getSource(), edge.getTarget());
+			}
+		}
+	};
+
 	/**
 	 * Name of the document.
 	 */
@@ -115,6 +303,22 @@ public abstract class Document<T> {
 	 */
 	protected boolean visible;
 
+	/**
+	 * Number of transactions that are currently open. Notifications are
+	 * deferred while this is greater than zero.
+	 */
+	private int transactionDepth;
+
+	/**
+	 * Notifications that were raised during the current transaction.
+	 */
+	private boolean pendingDocumentChanged;
+	private boolean pendingSaveNecessary;
+	private boolean pendingSelectionChanged;
+	private boolean pendingDocumentDirty;
+	private boolean pendingRepaintAll;
+	private boolean pendingRevision;
+
 	/**
 	 * Viewport object that saves translation, scaling and viewport dimensions.
 	 */
@@ -138,6 +342,15 @@ public abstract class Document<T> {
 		this.elements = new HashMap<>();
 		this.visualElements = new HashSet<>();
 		this.selection = new Selection();
+		this.spatialIndex = new SpatialIndex();
+		this.changedElements = new HashSet<>();
+		this.movedNodes = new HashSet<>();
+		this.outgoingEdges = new HashMap<>();
+		this.incomingEdges = new HashMap<>();
+		this.undrawableElements = new HashSet<>();
+		this.visibleElements = new HashSet<>();
+		this.visualBounds = new HashMap<>();
+		this.draggedElements = new HashSet<>();
 	}
 
 	/**
@@ -191,6 +404,7 @@ public abstract class Document<T> {
 	 */
 	public void toggleSelection(GraphicalElement elem) {
 		selection.toggleSelection(elem);
+		increaseRevision();
 	}
 
 	/**
@@ -201,15 +415,13 @@ public abstract class Document<T> {
 	 */
 	public void addToSelection(GraphicalElement elem) {
 		selection.addToSelection(elem);
+		increaseRevision();
 
 		// When a node is selected, also select all self-loops of it
 		if (elem instanceof GraphicalNode) {
-			for (GraphicalElement otherElem : elements.keySet()) {
-				if (otherElem instanceof GraphicalEdge) {
-					GraphicalEdge loop = (GraphicalEdge) otherElem;
-					if (loop.getSource().equals(elem) && loop.getTarget().equals(elem)) {
-						selection.addToSelection(loop);
-					}
+			for (GraphicalEdge edge : getOutgoingEdges((GraphicalNode) elem)) {
+				if (edge.getTarget().equals(elem)) {
+					selection.addToSelection(edge);
 				}
 			}
 		}
@@ -223,6 +435,7 @@ public abstract class Document<T> {
 	 */
 	public void removeFromSelection(GraphicalElement elem) {
 		selection.removeFromSelection(elem);
+		increaseRevision();
 	}
 
 	/**
@@ -230,6 +443,58 @@ public abstract class Document<T> {
 	 */
 	public void clearSelection() {
 		selection.clearSelection();
+		increaseRevision();
+	}
+
+	/**
+	 * Replaces the selection with the given elements and, like
+	 * {@link #addToSelection(GraphicalElement)}, the self-loops of the given
+	 * nodes. Only elements whose selection state changes are touched, the
+	 * revision is increased at most once and listeners receive a single
+	 * selection change notification if anything changed. This makes it
+	 * cheap to update the selection continuously, e.g. while a selection
+	 * frame is dragged.
+	 *
+	 * @param elements
+	 *                elements that should be selected
+	 */
+	public void setSelection(Collection<GraphicalElement> elements) {
+		Set<GraphicalElement> target = new HashSet<>(elements);
+		for (GraphicalElement elem : elements) {
+			if (elem instanceof GraphicalNode) {
+				for (GraphicalEdge edge : getOutgoingEdges((GraphicalNode) elem)) {
+					if (edge.getTarget().equals(elem)) {
+						target.add(edge);
+					}
+				}
+			}
+		}
+		Set<GraphicalElement> current = selection.getSelection();
+		List<GraphicalElement> removed = new ArrayList<>();
+		for (GraphicalElement elem : current) {
+			if (!target.contains(elem)) {
+				removed.add(elem);
+			}
+		}
+		boolean changed = !removed.isEmpty();
+		beginTransaction();
+		try {
+			for (GraphicalElement elem : removed) {
+				selection.removeFromSelection(elem);
+			}
+			for (GraphicalElement elem : target) {
+				if (!current.contains(elem)) {
+					selection.addToSelection(elem);
+					changed = true;
+				}
+			}
+			if (changed) {
+				increaseRevision();
+				fireSelectionChanged();
+			}
+		} finally {
+			endTransaction();
+		}
 	}
 
 	/**
@@ -298,6 +563,9 @@ public abstract class Document<T> {
 	 */
 	public void add(GraphicalElement graphicalElem) {
 		visualElements.add(graphicalElem);
+		graphicalElem.setListener(elementListener);
+		graphicalElem.setTextLayoutCache(textLayoutCache);
+		changedElements.add(graphicalElem);
 	}
 
 	/**
@@ -311,9 +579,22 @@ public abstract class Document<T> {
 	 */
 	public void add(GraphicalElement graphicalElem, IExtensible modelElem) {
 		assert modelElem != null;
-		visualElements.remove(graphicalElem);
-		elements.put(graphicalElem, modelElem);
+		if (visualElements.remove(graphicalElem)) {
+			addDamage(visualBounds.remove(graphicalElem));
+		}
+		if (elements.put(graphicalElem, modelElem) == null && graphicalElem instanceof GraphicalEdge) {
+			GraphicalEdge edge = (GraphicalEdge) graphicalElem;
+			addIncidence(edge, edge.getSource(), edge.getTarget());
+		}
 		modelElem.putExtension(GraphicalElement.EXTENSION_KEY, graphicalElem);
+		graphicalElem.setListener(elementListener);
+		graphicalElem.setTextLayoutCache(textLayoutCache);
+		changedElements.add(graphicalElem);
+		increaseRevision();
+		geometryRevision++;
+		bounds = null;
+		updateDrawable(graphicalElem);
+		updateGraphicalElement(graphicalElem);
 	}
 
 	/**
@@ -322,9 +603,92 @@ public abstract class Document<T> {
 	 * @param graphicalElem graphical element to remove
 	 */
 	public void remove(GraphicalElement graphicalElem) {
-		elements.remove(graphicalElem);
-		visualElements.remove(graphicalElem);
+		if (elements.remove(graphicalElem) != null) {
+			addDamage(spatialIndex.getIndexedBounds(graphicalElem));
+			spatialIndex.remove(graphicalElem);
+			increaseRevision();
+			geometryRevision++;
+			bounds = null;
+			undrawableElements.remove(graphicalElem);
+			if (graphicalElem instanceof GraphicalEdge) {
+				GraphicalEdge edge = (GraphicalEdge) graphicalElem;
+				removeIncidence(edge, edge.getSource(), edge.getTarget());
+			}
+		}
+		if (visualElements.remove(graphicalElem)) {
+			addDamage(visualBounds.remove(graphicalElem));
+		}
 		removeFromSelection(graphicalElem);
+		draggedElements.remove(graphicalElem);
+		graphicalElem.setListener(null);
+		graphicalElem.setTextLayoutCache(null);
+		changedElements.remove(graphicalElem);
+		movedNodes.remove(graphicalElem);
+	}
+
+	/**
+	 * Returns the edges with model element that start at the given node.
+	 *
+	 * @param node
+	 *                source node
+	 * @return unmodifiable view of the outgoing edges
+	 */
+	public List<GraphicalEdge> getOutgoingEdges(GraphicalNode node) {
+		return getIncidence(outgoingEdges, node);
+	}
+
+	/**
+	 * Returns the edges with model element that end at the given node.
+	 *
+	 * @param node
+	 *                target node
+	 * @return unmodifiable view of the incoming edges
+	 */
+	public List<GraphicalEdge> getIncomingEdges(GraphicalNode node) {
+		return getIncidence(incomingEdges, node);
+	}
+
+	private static List<GraphicalEdge> getIncidence(Map<GraphicalNode, List<GraphicalEdge>> index,
+			GraphicalNode node) {
+		List<GraphicalEdge> edges = index.get(node);
+		if (edges == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(edges);
+	}
+
+	/**
+	 * Adds the edge to the adjacency index of the given nodes.
+	 */
+	private void addIncidence(GraphicalEdge edge, GraphicalNode source, GraphicalNode target) {
+		addIncidence(outgoingEdges, source, edge);
+		addIncidence(incomingEdges, target, edge);
+	}
+
+	private static void addIncidence(Map<GraphicalNode, List<GraphicalEdge>> index, GraphicalNode node,
+			GraphicalEdge edge) {
+		List<GraphicalEdge> edges = index.get(node);
+		if (edges == null) {
+			edges = new ArrayList<>(2);
+			index.put(node, edges);
+		}
+		edges.add(edge);
+	}
+
+	/**
+	 * Removes the edge from the adjacency index of the given nodes.
+	 */
+	private void removeIncidence(GraphicalEdge edge, GraphicalNode source, GraphicalNode target) {
+		removeIncidence(outgoingEdges, source, edge);
+		removeIncidence(incomingEdges, target, edge);
+	}
+
+	private static void removeIncidence(Map<GraphicalNode, List<GraphicalEdge>> index, GraphicalNode node,
+			GraphicalEdge edge) {
+		List<GraphicalEdge> edges = index.get(node);
+		if (edges != null && edges.remove(edge) && edges.isEmpty()) {
+			index.remove(node);
+		}
 	}
 
 	/**
@@ -450,11 +814,34 @@ public abstract class Document<T> {
 	}
 
 	/**
-	 * Calls onDocumentDirty for every listener.
+	 * Calls onDocumentDirty for every listener with the area that was
+	 * damaged by changes to GraphicalElements since the last call. If the
+	 * viewport changed in the meantime the whole document is marked dirty.
 	 */
 	public void fireDocumentDirty() {
+		fireDocumentDirty(false);
+	}
+
+	/**
+	 * Calls onDocumentDirty for every listener.
+	 *
+	 * @param repaintAll
+	 *                true, if the whole document needs to be redrawn
+	 *                because of changes that are not tracked by the
+	 *                document, e.g. modified rendering options
+	 */
+	public void fireDocumentDirty(boolean repaintAll) {
+		if (transactionDepth > 0) {
+			pendingDocumentDirty = true;
+			pendingRepaintAll |= repaintAll;
+			return;
+		}
+		if (repaintAll) {
+			increaseRevision();
+		}
+		Rectangle dirtyArea = takeDirtyArea(repaintAll);
 		for (DocumentListener l : listeners) {
-			l.onDocumentDirty(this);
+			l.onDocumentDirty(this, dirtyArea);
 		}
 	}
 
@@ -466,7 +853,13 @@ public abstract class Document<T> {
 	 *                true, if this change can be saved to a file
 	 */
 	public void fireDocumentChanged(boolean saveNecessary) {
+		if (transactionDepth > 0) {
+			pendingDocumentChanged = true;
+			pendingSaveNecessary |= saveNecessary;
+			return;
+		}
 		setHasUnsavedChanges(saveNecessary);
+		takeDirtyArea(true);
 		for (DocumentListener l : listeners) {
 			l.onDocumentChanged(this);
 		}
@@ -476,11 +869,89 @@ public abstract class Document<T> {
 	 * Calls onSelectionChanged for every listener.
 	 */
 	public void fireSelectionChanged() {
+		if (transactionDepth > 0) {
+			pendingSelectionChanged = true;
+			return;
+		}
 		for (DocumentListener l : listeners) {
 			l.onSelectionChanged(this);
 		}
 	}
 
+	/**
+	 * Starts a transaction. Until the matching call to
+	 * {@link #endTransaction()}, all notifications of listeners are
+	 * deferred. Transactions can be nested; only closing the outermost one
+	 * delivers the notifications. Changes of the revision are merged the
+	 * same way. Callers should end the transaction in a finally block.
+	 */
+	public void beginTransaction() {
+		transactionDepth++;
+	}
+
+	/**
+	 * Ends a transaction. When the outermost transaction ends, all
+	 * notifications that were raised during it are merged and delivered
+	 * to each listener in a single pass: the selection change, if any, is
+	 * followed by a single document change or, if there was none, a single
+	 * dirty notification. The two callbacks stay separate because
+	 * listeners react to them with unrelated work, e.g. updating actions
+	 * that depend on the selection versus repainting. No listener repaints
+	 * on a selection change, so a transaction causes at most one repaint.
+	 */
+	public void endTransaction() {
+		assert transactionDepth > 0;
+		if (--transactionDepth > 0) {
+			return;
+		}
+		boolean selectionChanged = pendingSelectionChanged;
+		boolean documentChanged = pendingDocumentChanged;
+		boolean saveNecessary = pendingSaveNecessary;
+		boolean documentDirty = pendingDocumentDirty && !documentChanged;
+		boolean repaintAll = pendingRepaintAll;
+		boolean revisionChanged = pendingRevision;
+		pendingSelectionChanged = false;
+		pendingDocumentChanged = false;
+		pendingSaveNecessary = false;
+		pendingDocumentDirty = false;
+		pendingRepaintAll = false;
+		pendingRevision = false;
+		if (revisionChanged || (repaintAll && (documentChanged || documentDirty))) {
+			revision++;
+		}
+		if (!selectionChanged && !documentChanged && !documentDirty) {
+			return;
+		}
+
+		Rectangle dirtyArea = null;
+		if (documentChanged) {
+			// A document change always repaints everything.
+			setHasUnsavedChanges(saveNecessary);
+			takeDirtyArea(true);
+		} else if (documentDirty) {
+			dirtyArea = takeDirtyArea(repaintAll);
+		}
+		for (DocumentListener l : listeners) {
+			if (selectionChanged) {
+				l.onSelectionChanged(this);
+			}
+			if (documentChanged) {
+				l.onDocumentChanged(this);
+			} else if (documentDirty) {
+				l.onDocumentDirty(this, dirtyArea);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if a transaction is open.
+	 *
+	 * @return true if notifications are currently deferred
+	 */
+	public boolean isInTransaction() {
+		return transactionDepth > 0;
+	}
+
 	/**
 	 * Applies the given layout to this document.
 	 *
@@ -498,8 +969,8 @@ public abstract class Document<T> {
 
 	/**
 	 * Draws this document with the given Graphics2D object and rendering
-	 * options. Before any GraphicalElements are called to draw themselves
-	 * the transform is applied to the graphics object.
+	 * options. The amount of detail is chosen by the rendering options
+	 * based on the viewport scale.
 	 *
 	 * @param graphics
 	 *                graphics object to use for drawing
@@ -507,25 +978,436 @@ public abstract class Document<T> {
 	 *                settings that influence the drawing process
 	 */
 	public void draw(Graphics2D graphics, RenderingOptions renderingOptions) {
+		draw(graphics, renderingOptions, renderingOptions.getDetailLevel(viewport.getScale()));
+	}
+
+	/**
+	 * Draws this document with the given Graphics2D object and rendering
+	 * options. Before any GraphicalElements are called to draw themselves
+	 * the transform is applied to the graphics object. Elements that lie
+	 * outside of the area shown by the viewport are not drawn.
+	 *
+	 * @param graphics
+	 *                graphics object to use for drawing
+	 * @param renderingOptions
+	 *                settings that influence the drawing process
+	 * @param detailLevel
+	 *                amount of detail that should be drawn
+	 */
+	public void draw(Graphics2D graphics, RenderingOptions renderingOptions, DetailLevel detailLevel) {
 		if (!visible) {
 			return;
 		}
+		drawLayer(graphics, renderingOptions, detailLevel, Layer.ALL);
+	}
 
+	/**
+	 * Draws all elements that belong to the static layer, i.e. elements
+	 * that are not part of the overlay layer. Highlights are ignored
+	 * because highlighted elements are drawn again by the overlay layer.
+	 * The result only changes when {@link #getRevision()} or the viewport
+	 * changes, so it can be cached.
+	 *
+	 * @param graphics
+	 *                graphics object to use for drawing
+	 * @param renderingOptions
+	 *                settings that influence the drawing process
+	 */
+	public void drawStaticLayer(Graphics2D graphics, RenderingOptions renderingOptions) {
+		if (visible) {
+			drawLayer(graphics, renderingOptions, renderingOptions.getDetailLevel(viewport.getScale()),
+					Layer.STATIC);
+		}
+	}
+
+	/**
+	 * Draws all elements that belong to the overlay layer: standalone
+	 * elements such as the selection frame, selected and dragged elements
+	 * as well as edges connected to them, and highlighted elements. This
+	 * layer is meant to be drawn on top of the static layer.
+	 *
+	 * @param graphics
+	 *                graphics object to use for drawing
+	 * @param renderingOptions
+	 *                settings that influence the drawing process
+	 */
+	public void drawOverlayLayer(Graphics2D graphics, RenderingOptions renderingOptions) {
+		if (visible) {
+			drawLayer(graphics, renderingOptions, renderingOptions.getDetailLevel(viewport.getScale()),
+					Layer.OVERLAY);
+		}
+	}
+
+	/**
+	 * Draws the elements of the given layer. Before any GraphicalElements
+	 * are called to draw themselves the transform is applied to the
+	 * graphics object. Elements that lie outside of the visible area are
+	 * skipped.
+	 */
+	private void drawLayer(Graphics2D graphics, RenderingOptions renderingOptions, DetailLevel detailLevel,
+			Layer layer) {
 		// Save original transform.
 		AffineTransform originalTransform = graphics.getTransform();
 		// Apply document transform.
 		graphics.transform(viewport.getAffineTransform());
-		// Draw document.
-		for (GraphicalElement elem : elements.keySet()) {
-			elem.draw(graphics, renderingOptions);
+		// Find elements to draw.
+		Rectangle visibleArea = getVisibleArea(graphics);
+		Set<GraphicalElement> candidates;
+		if (visibleArea == null) {
+			candidates = elements.keySet();
+		} else {
+			updateSpatialIndex();
+			spatialIndex.query(visibleArea, visibleElements);
+			candidates = visibleElements;
+		}
+		textLayoutCache.ensureCapacity(candidates.size());
+		// Draw document. Edges are collected and drawn in batches first,
+		// all other elements are drawn on top of them.
+		PaintProfiler profiler = (paintProfiler != null && paintProfiler.isRecording()) ? paintProfiler : null;
+		boolean highlights = (layer != Layer.STATIC);
+		int edgeCount = 0;
+		boolean preview = (dragPreview != null && layer != Layer.STATIC);
+		for (GraphicalElement elem : candidates) {
+			if (!isInLayer(elem, layer) || (preview && dragPreview.contains(elem))) {
+				continue;
+			}
+			if (elem instanceof GraphicalEdge) {
+				edgeBatch.add((GraphicalEdge) elem, highlights, detailLevel);
+				edgeCount++;
+			} else {
+				deferredElements.add(elem);
+			}
+		}
+		long start = (profiler != null) ? System.nanoTime() : 0;
+		edgeBatch.draw(graphics, renderingOptions, detailLevel);
+		if (profiler != null) {
+			profiler.addTime(EDGES_SECTION, start);
+			profiler.addElements(edgeCount + deferredElements.size());
+		}
+		Collections.sort(deferredElements, GraphicalElement.STYLE_ORDER);
+		// Time runs of elements of the same type so that profiling needs
+		// only one clock read per change of type.
+		Class<?> runType = null;
+		for (GraphicalElement elem : deferredElements) {
+			if (profiler != null && elem.getClass() != runType) {
+				start = (runType != null) ? profiler.addTime(runType, start) : System.nanoTime();
+				runType = elem.getClass();
+			}
+			if (highlights) {
+				elem.draw(graphics, renderingOptions, detailLevel);
+			} else {
+				elem.drawUnhighlighted(graphics, renderingOptions, detailLevel);
+			}
+		}
+		if (runType != null) {
+			profiler.addTime(runType, start);
+		}
+		deferredElements.clear();
+		if (layer != Layer.OVERLAY) {
+			culledElementCount = elements.size() - candidates.size();
+		}
+		visibleElements.clear();
+		if (preview) {
+			start = (profiler != null) ? System.nanoTime() : 0;
+			dragPreview.draw(graphics, renderingOptions, detailLevel, edgeBatch);
+			if (profiler != null) {
+				profiler.addTime(DRAG_PREVIEW_SECTION, start);
+			}
 		}
-		for (GraphicalElement elem : visualElements) {
-			elem.draw(graphics, renderingOptions);
+		if (layer != Layer.STATIC) {
+			start = (profiler != null) ? System.nanoTime() : 0;
+			for (GraphicalElement elem : visualElements) {
+				elem.draw(graphics, renderingOptions, detailLevel);
+			}
+			if (profiler != null) {
+				profiler.addTime(VISUAL_ELEMENTS_SECTION, start);
+				profiler.addElements(visualElements.size());
+			}
 		}
 		// Restore original transform.
 		graphics.setTransform(originalTransform);
 	}
 
+	/**
+	 * Returns true if the given model-backed element is drawn as part of
+	 * the given layer.
+	 */
+	private boolean isInLayer(GraphicalElement elem, Layer layer) {
+		switch (layer) {
+		case STATIC:
+			return !isOverlayElement(elem);
+		case OVERLAY:
+			return isOverlayElement(elem) || elem.hasHighlight();
+		default:
+			return true;
+		}
+	}
+
+	/**
+	 * Returns true if the given element belongs to the overlay layer,
+	 * i.e. it is likely to change during interactive editing.
+	 *
+	 * @param elem
+	 *                element to test
+	 * @return true if the element is drawn by the overlay layer
+	 */
+	private boolean isOverlayElement(GraphicalElement elem) {
+		if (!elements.containsKey(elem) || elem.isSelected() || draggedElements.contains(elem)) {
+			return true;
+		}
+		if (elem instanceof GraphicalEdge) {
+			GraphicalEdge edge = (GraphicalEdge) elem;
+			return isDraggable(edge.getSource()) || isDraggable(edge.getTarget());
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if the given node may move during interactive editing.
+	 */
+	private boolean isDraggable(GraphicalNode node) {
+		return node.isSelected() || draggedElements.contains(node);
+	}
+
+	/**
+	 * Returns the profiler that records drawing times of this document.
+	 *
+	 * @return the profiler or null if profiling is disabled
+	 */
+	public PaintProfiler getPaintProfiler() {
+		return paintProfiler;
+	}
+
+	/**
+	 * Sets the profiler that records drawing times of this document.
+	 * Drawing adds the time spent per element type to the profiler's
+	 * current frame.
+	 *
+	 * @param paintProfiler
+	 *                profiler or null to disable profiling
+	 */
+	public void setPaintProfiler(PaintProfiler paintProfiler) {
+		this.paintProfiler = paintProfiler;
+	}
+
+	/**
+	 * Returns the revision of this document's static layer. It increases
+	 * whenever something changes that is drawn by
+	 * {@link #drawStaticLayer(Graphics2D, RenderingOptions)}.
+	 *
+	 * @return current revision
+	 */
+	public long getRevision() {
+		return revision;
+	}
+
+	/**
+	 * Increases the revision of the static layer. Inside of a transaction
+	 * the revision is increased only once when the transaction ends, no
+	 * matter how many elements change.
+	 */
+	private void increaseRevision() {
+		if (transactionDepth > 0) {
+			pendingRevision = true;
+		} else {
+			revision++;
+		}
+	}
+
+	/**
+	 * Sets the elements that are currently being dragged by the user
+	 * although they are not selected, e.g. an edge whose breakpoint is
+	 * moved. They are drawn by the overlay layer until the set is cleared.
+	 *
+	 * @param draggedElements
+	 *                elements being dragged
+	 */
+	public void setDraggedElements(Collection<? extends GraphicalElement> draggedElements) {
+		this.draggedElements.clear();
+		this.draggedElements.addAll(draggedElements);
+		increaseRevision();
+	}
+
+	/**
+	 * Clears the set of elements that are being dragged.
+	 */
+	public void clearDraggedElements() {
+		if (!draggedElements.isEmpty()) {
+			draggedElements.clear();
+			increaseRevision();
+		}
+	}
+
+	/**
+	 * Shows the given elements translated by an offset without modifying
+	 * them, e.g. while the user drags them. Edges connected to the nodes
+	 * are stretched accordingly. The elements have to belong to the
+	 * overlay layer, which is the case for selected elements. The preview
+	 * starts with offset zero.
+	 *
+	 * @param translated
+	 *                nodes and edges whose breakpoints are translated
+	 */
+	public void setDragPreview(Collection<? extends GraphicalElement> translated) {
+		clearDragPreview();
+		updateSpatialIndex();
+		dragPreview = new DragPreview(this, translated);
+		addDamage(dragPreview.getArea());
+	}
+
+	/**
+	 * Sets the offset by which the drag preview shows its elements
+	 * translated. Nothing happens if there is no drag preview.
+	 *
+	 * @param dx
+	 *                offset on the x axis
+	 * @param dy
+	 *                offset on the y axis
+	 */
+	public void setDragPreviewOffset(int dx, int dy) {
+		if (dragPreview != null) {
+			addDamage(dragPreview.getArea());
+			dragPreview.setOffset(dx, dy);
+			addDamage(dragPreview.getArea());
+		}
+	}
+
+	/**
+	 * Ends the drag preview so that the elements are drawn at their actual
+	 * positions again.
+	 */
+	public void clearDragPreview() {
+		if (dragPreview != null) {
+			addDamage(dragPreview.getArea());
+			dragPreview = null;
+		}
+	}
+
+	/**
+	 * Returns the bounds the given model-backed element had when the
+	 * spatial index was last updated.
+	 *
+	 * @param elem
+	 *                element
+	 * @return indexed bounds or null if the element is not indexed
+	 */
+	Rectangle getIndexedBounds(GraphicalElement elem) {
+		return spatialIndex.getIndexedBounds(elem);
+	}
+
+	/**
+	 * Copies attributes that are derived from the model, e.g. labels, from
+	 * the associated model element to the given GraphicalElement. This
+	 * happens automatically when an element is added. Code that modifies
+	 * model elements of a document has to call this afterwards since
+	 * drawing only reads the GraphicalElements.
+	 *
+	 * @param graphicalElem
+	 *                element to update
+	 */
+	public void updateGraphicalElement(GraphicalElement graphicalElem) {
+		// Empty by default
+	}
+
+	/**
+	 * Updates all GraphicalElements from their model elements.
+	 *
+	 * @see #updateGraphicalElement(GraphicalElement)
+	 */
+	public void updateGraphicalElements() {
+		for (GraphicalElement elem : elements.keySet()) {
+			updateGraphicalElement(elem);
+		}
+	}
+
+	/**
+	 * Returns the area in model coordinates that is shown by the viewport
+	 * and not excluded by the clip of the graphics object, enlarged by the
+	 * drawing margin.
+	 *
+	 * @param graphics
+	 *                graphics object with the document transform applied
+	 * @return visible area or null if the viewport has no valid dimensions
+	 *         yet and everything should be drawn
+	 */
+	private Rectangle getVisibleArea(Graphics2D graphics) {
+		Rectangle area = getViewportArea();
+		Rectangle clip = graphics.getClipBounds();
+		if (clip != null) {
+			clip.grow(DRAWING_MARGIN, DRAWING_MARGIN);
+			area = (area == null) ? clip : area.intersection(clip);
+		}
+		return area;
+	}
+
+	/**
+	 * Returns the area in model coordinates that is shown by the viewport,
+	 * enlarged by the drawing margin.
+	 *
+	 * @return viewport area or null if the viewport has no valid
+	 *         dimensions yet
+	 */
+	private Rectangle getViewportArea() {
+		if (viewport.getWidth() <= 0 || viewport.getHeight() <= 0) {
+			return null;
+		}
+		Point topLeft = viewport.getTopLeftModel();
+		Point bottomRight = viewport.getBottomRightModel();
+		Rectangle area = new Rectangle(topLeft);
+		area.add(bottomRight);
+		area.grow(DRAWING_MARGIN, DRAWING_MARGIN);
+		return area;
+	}
+
+	/**
+	 * Returns copies of all elements in the viewport that belong to the
+	 * static layer, see
+	 * {@link #drawStaticLayer(Graphics2D, RenderingOptions)}. The copies
+	 * can be drawn on another thread while this document changes.
+	 *
+	 * @return snapshot of the visible static layer
+	 * @see GraphicalElement#createSnapshot(Map)
+	 */
+	public List<GraphicalElement> createStaticLayerSnapshot() {
+		Rectangle visibleArea = getViewportArea();
+		Set<GraphicalElement> candidates;
+		if (visibleArea == null) {
+			candidates = elements.keySet();
+		} else {
+			updateSpatialIndex();
+			spatialIndex.query(visibleArea, visibleElements);
+			candidates = visibleElements;
+		}
+		Map<GraphicalElement, GraphicalElement> snapshots = new HashMap<>();
+		List<GraphicalElement> result = new ArrayList<>();
+		for (GraphicalElement elem : candidates) {
+			if (!isOverlayElement(elem)) {
+				result.add(elem.createSnapshot(snapshots));
+			}
+		}
+		visibleElements.clear();
+		return result;
+	}
+
+	/**
+	 * Returns the amount of elements with associated model elements that
+	 * were not drawn during the last call to
+	 * {@link #draw(Graphics2D, RenderingOptions)} because they were outside
+	 * of the visible area.
+	 *
+	 * @return amount of culled elements in the last frame
+	 */
+	public int getCulledElementCount() {
+		return culledElementCount;
+	}
+
+	/**
+	 * Layers that can be drawn by {@link Document#drawLayer}.
+	 */
+	private enum Layer {
+		ALL, STATIC, OVERLAY
+	}
+
 	/**
 	 * Returns the GraphicalElement associated with the given model element.
 	 *
@@ -548,19 +1430,25 @@ public abstract class Document<T> {
 	 * @return an axis-aligned minimum bounding box
 	 */
 	public Rectangle getBounds() {
-		Rectangle bounds = null;
-		for (GraphicalElement elem : elements.keySet()) {
-			if (bounds == null) {
-				bounds = elem.getBounds();
-			} else {
-				bounds = bounds.union(elem.getBounds());
-			}
-		}
 		if (bounds == null) {
-			return new Rectangle();
-		} else {
-			return bounds;
+			// Reuse the element bounds that the spatial index already
+			// computed. Elements that cannot be drawn have no bounds.
+			updateSpatialIndex();
+			Rectangle union = null;
+			for (GraphicalElement elem : elements.keySet()) {
+				Rectangle elemBounds = spatialIndex.getIndexedBounds(elem);
+				if (elemBounds == null) {
+					continue;
+				}
+				if (union == null) {
+					union = new Rectangle(elemBounds);
+				} else {
+					union.add(elemBounds);
+				}
+			}
+			bounds = (union == null) ? new Rectangle() : union;
 		}
+		return new Rectangle(bounds);
 	}
 
 	/**
@@ -590,8 +1478,15 @@ public abstract class Document<T> {
 	 * @return the GraphicalElement or null
 	 */
 	public GraphicalElement getGraphicalElementAt(Point point, boolean preferNodes) {
+		if (pickingBuffer != null && draggedElements.isEmpty() && updatePickingBuffer()) {
+			Point viewPoint = viewport.transform(point);
+			if (pickingBuffer.contains(viewPoint)) {
+				return pickingBuffer.getElementAt(viewPoint);
+			}
+		}
+		updateSpatialIndex();
 		GraphicalElement nonNodeChoice = null;
-		for (GraphicalElement elem : elements.keySet()) {
+		for (GraphicalElement elem : spatialIndex.getCandidatesAt(point)) {
 			if (elem.coversPoint(point)) {
 				if (preferNodes && !(elem instanceof GraphicalNode)) {
 					nonNodeChoice = elem;
@@ -603,6 +1498,48 @@ public abstract class Document<T> {
 		return nonNodeChoice;
 	}
 
+	/**
+	 * Returns all GraphicalElements with associated model element that lie
+	 * completely inside the given area. Only elements whose bounds
+	 * intersect the bounding box of the area are tested, so this is fast
+	 * even for large documents.
+	 *
+	 * @param area
+	 *                area in model coordinates, e.g. a rectangle or a
+	 *                polygon
+	 * @return set of all elements inside the area
+	 */
+	public Set<GraphicalElement> getGraphicalElementsIn(Shape area) {
+		Set<GraphicalElement> result = new HashSet<>();
+		getGraphicalElementsIn(area, result);
+		return result;
+	}
+
+	/**
+	 * Replaces the content of the given set with all GraphicalElements with
+	 * associated model element that lie completely inside the given area.
+	 * This allows callers that query repeatedly, e.g. while a selection
+	 * area is dragged, to reuse their result set.
+	 *
+	 * @param area
+	 *                area in model coordinates, e.g. a rectangle or a
+	 *                polygon
+	 * @param result
+	 *                set that is cleared and filled with all elements
+	 *                inside the area
+	 */
+	public void getGraphicalElementsIn(Shape area, Set<GraphicalElement> result) {
+		updateSpatialIndex();
+		result.clear();
+		spatialIndex.query(area.getBounds(), result);
+		Iterator<GraphicalElement> it = result.iterator();
+		while (it.hasNext()) {
+			if (!area.contains(spatialIndex.getIndexedBounds(it.next()))) {
+				it.remove();
+			}
+		}
+	}
+
 	/**
 	 * Returns the model element whose associated GraphicalElement covers
 	 * the given point or null if there is not element at that position.
@@ -615,12 +1552,160 @@ public abstract class Document<T> {
 	 */
 	@SuppressWarnings("unchecked")
 	public <U> U getModelElementAt(Point point) {
-		for (GraphicalElement elem : elements.keySet()) {
-			if (elem.coversPoint(point)) {
-				return (U) elements.get(elem);
+		GraphicalElement elem = getGraphicalElementAt(point);
+		if (elem == null) {
+			return null;
+		}
+		return (U) elements.get(elem);
+	}
+
+	/**
+	 * Enables or disables the picking buffer. While it is enabled,
+	 * {@link #getGraphicalElementAt(Point, boolean)} looks up points in the
+	 * viewport in an off-screen image that maps pixels to elements instead
+	 * of testing all elements near the point. The buffer is rebuilt lazily
+	 * when a lookup happens after the viewport or the geometry of an
+	 * element changed.
+	 *
+	 * @param enabled
+	 *                true to enable the picking buffer
+	 */
+	public void setPickingBufferEnabled(boolean enabled) {
+		if (!enabled) {
+			pickingBuffer = null;
+		} else if (pickingBuffer == null) {
+			pickingBuffer = new PickingBuffer();
+		}
+	}
+
+	/**
+	 * Returns true if the picking buffer is enabled.
+	 *
+	 * @return true if the picking buffer is enabled
+	 * @see #setPickingBufferEnabled(boolean)
+	 */
+	public boolean isPickingBufferEnabled() {
+		return pickingBuffer != null;
+	}
+
+	/**
+	 * Rebuilds the picking buffer if it is outdated.
+	 *
+	 * @return true if the picking buffer can be used for lookups
+	 */
+	private boolean updatePickingBuffer() {
+		if (!pickingBuffer.isUpToDate(viewport, geometryRevision)) {
+			Rectangle area = getViewportArea();
+			if (area == null) {
+				return false;
+			}
+			updateSpatialIndex();
+			spatialIndex.query(area, visibleElements);
+			pickingBuffer.rebuild(visibleElements, viewport, geometryRevision);
+			visibleElements.clear();
+		}
+		return pickingBuffer.isComplete();
+	}
+
+	/**
+	 * Brings the spatial index and the damaged area up to date with all
+	 * changes to GraphicalElements that happened since the last call.
+	 * Edges are updated as well if one of their nodes moved.
+	 */
+	private void updateSpatialIndex() {
+		if (changedElements.isEmpty()) {
+			return;
+		}
+		if (!movedNodes.isEmpty()) {
+			for (GraphicalNode node : movedNodes) {
+				changedElements.addAll(getOutgoingEdges(node));
+				changedElements.addAll(getIncomingEdges(node));
+			}
+			// Edges without model element, e.g. while one is being
+			// created, are not part of the adjacency index.
+			addEdgesOfMovedNodes(visualElements);
+			movedNodes.clear();
+		}
+		for (GraphicalElement elem : changedElements) {
+			if (elements.containsKey(elem)) {
+				addDamage(spatialIndex.getIndexedBounds(elem));
+				spatialIndex.update(elem);
+				addDamage(spatialIndex.getIndexedBounds(elem));
+			} else if (visualElements.contains(elem)) {
+				addDamage(visualBounds.remove(elem));
+				if (SpatialIndex.isIndexable(elem)) {
+					Rectangle bounds = elem.getBounds();
+					visualBounds.put(elem, bounds);
+					addDamage(bounds);
+				}
+			}
+		}
+		changedElements.clear();
+	}
+
+	/**
+	 * Marks all edges in the given collection as changed that are
+	 * connected to a moved node.
+	 */
+	private void addEdgesOfMovedNodes(Set<GraphicalElement> candidates) {
+		for (GraphicalElement elem : candidates) {
+			if (elem instanceof GraphicalEdge) {
+				GraphicalEdge edge = (GraphicalEdge) elem;
+				if (movedNodes.contains(edge.getSource()) || movedNodes.contains(edge.getTarget())) {
+					changedElements.add(edge);
+				}
 			}
 		}
-		return null;
+	}
+
+	/**
+	 * Adds the given model area to the damaged area.
+	 *
+	 * @param bounds
+	 *                damaged area in model coordinates; may be null
+	 */
+	private void addDamage(Rectangle bounds) {
+		if (bounds == null) {
+			return;
+		}
+		if (damagedArea == null) {
+			damagedArea = new Rectangle(bounds);
+		} else {
+			damagedArea.add(bounds);
+		}
+	}
+
+	/**
+	 * Returns the area in view coordinates that needs to be redrawn and
+	 * resets the damage tracking.
+	 *
+	 * @param repaintAll
+	 *                true, if the whole document should be redrawn
+	 * @return dirty area in view coordinates, an empty rectangle if nothing
+	 *         needs to be redrawn or null if everything should be redrawn
+	 */
+	private Rectangle takeDirtyArea(boolean repaintAll) {
+		updateSpatialIndex();
+		Rectangle dirtyArea;
+		if (repaintAll || !viewport.equals(lastDrawnViewport)) {
+			dirtyArea = null;
+		} else if (damagedArea == null) {
+			dirtyArea = new Rectangle();
+		} else {
+			damagedArea.grow(DRAWING_MARGIN, DRAWING_MARGIN);
+			Point topLeft = viewport.transform(damagedArea.getLocation());
+			Point bottomRight = viewport.transform(new Point(
+				damagedArea.x + damagedArea.width,
+				damagedArea.y + damagedArea.height
+			));
+			dirtyArea = new Rectangle(topLeft);
+			dirtyArea.add(bottomRight);
+			// Account for rounding errors.
+			dirtyArea.grow(1, 1);
+		}
+		damagedArea = null;
+		lastDrawnViewport = new Viewport(viewport);
+		return dirtyArea;
 	}
 
 	/**
@@ -628,12 +1713,18 @@ public abstract class Document<T> {
 	 * necessary layout information.
 	 */
 	public boolean hasCompleteLayout() {
-		for (GraphicalElement elem : elements.keySet()) {
-			if (!elem.canDraw()) {
-				return false;
-			}
+		return undrawableElements.isEmpty();
+	}
+
+	/**
+	 * Records whether the given element with model element can be drawn.
+	 */
+	private void updateDrawable(GraphicalElement elem) {
+		if (elem.canDraw()) {
+			undrawableElements.remove(elem);
+		} else {
+			undrawableElements.add(elem);
 		}
-		return true;
 	}
 
 }
@@ -19,12 +19,21 @@
 
 package uniol.aptgui.document;
 
+import java.awt.Rectangle;
+
 public interface DocumentListener {
 
 	/**
 	 * Called when the document changes visually.
+	 *
+	 * @param source
+	 *                the document that this call originates from
+	 * @param dirtyArea
+	 *                area in view coordinates that needs to be redrawn,
+	 *                an empty rectangle if nothing visible changed or null
+	 *                if the whole document needs to be redrawn
 	 */
-	void onDocumentDirty(Document<?> source);
+	void onDocumentDirty(Document<?> source, Rectangle dirtyArea);
 
 	/**
 	 * Called when the document changes structurally.
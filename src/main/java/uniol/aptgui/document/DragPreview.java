@@ -0,0 +1,196 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import uniol.aptgui.document.graphical.GraphicalElement;
+import uniol.aptgui.document.graphical.edges.GraphicalEdge;
+import uniol.aptgui.document.graphical.nodes.GraphicalNode;
+
+/**
+ * Shows a group of elements translated by an offset without modifying them.
+ * Elements that move as a whole are drawn with a translated transform. Edges
+ * that only partly move, e.g. because one of their nodes stays in place, are
+ * drawn from copies whose moving parts are translated.
+ */
+class DragPreview {
+
+	private final Set<GraphicalElement> elements = new HashSet<>();
+	private final List<GraphicalEdge> rigidEdges = new ArrayList<>();
+	private final List<GraphicalElement> rigidNodes = new ArrayList<>();
+	private final List<GraphicalEdge> stretchedEdges = new ArrayList<>();
+	private final List<GraphicalNode> movedCopies = new ArrayList<>();
+	private final List<GraphicalEdge> movedBreakpointCopies = new ArrayList<>();
+	private Rectangle bounds;
+	private int dx;
+	private int dy;
+
+	/**
+	 * Creates a preview for the given elements.
+	 *
+	 * @param document
+	 *                document that contains the elements
+	 * @param translated
+	 *                elements that are translated, i.e. nodes and edges
+	 *                whose breakpoints move
+	 */
+	DragPreview(Document<?> document, Collection<? extends GraphicalElement> translated) {
+		Set<GraphicalElement> moving = new HashSet<>(translated);
+		Set<GraphicalEdge> edges = new HashSet<>();
+		for (GraphicalElement elem : moving) {
+			if (elem instanceof GraphicalNode) {
+				GraphicalNode node = (GraphicalNode) elem;
+				addElement(document, node);
+				rigidNodes.add(node);
+				edges.addAll(document.getOutgoingEdges(node));
+				edges.addAll(document.getIncomingEdges(node));
+			} else if (elem instanceof GraphicalEdge) {
+				edges.add((GraphicalEdge) elem);
+			}
+		}
+
+		Map<GraphicalElement, GraphicalElement> snapshots = new HashMap<>();
+		for (GraphicalEdge edge : edges) {
+			boolean sourceMoves = moving.contains(edge.getSource());
+			boolean targetMoves = moving.contains(edge.getTarget());
+			boolean breakpointsMove = moving.contains(edge) || edge.getBreakpoints().isEmpty();
+			addElement(document, edge);
+			if (sourceMoves && targetMoves && breakpointsMove) {
+				rigidEdges.add(edge);
+				continue;
+			}
+			GraphicalEdge copy = (GraphicalEdge) edge.createSnapshot(snapshots);
+			stretchedEdges.add(copy);
+			if (sourceMoves) {
+				movedCopies.add(copy.getSource());
+			}
+			if (targetMoves && edge.getTarget() != edge.getSource()) {
+				movedCopies.add(copy.getTarget());
+			}
+			if (moving.contains(edge)) {
+				movedBreakpointCopies.add(copy);
+			}
+		}
+	}
+
+	private void addElement(Document<?> document, GraphicalElement elem) {
+		elements.add(elem);
+		Rectangle elemBounds = document.getIndexedBounds(elem);
+		if (elemBounds == null) {
+			return;
+		}
+		if (bounds == null) {
+			bounds = new Rectangle(elemBounds);
+		} else {
+			bounds.add(elemBounds);
+		}
+	}
+
+	/**
+	 * Returns true if the given element is drawn by this preview instead of
+	 * the regular drawing code.
+	 *
+	 * @param elem
+	 *                element to test
+	 * @return true if the element is part of the preview
+	 */
+	boolean contains(GraphicalElement elem) {
+		return elements.contains(elem);
+	}
+
+	/**
+	 * Returns the area that the preview covers at its current offset,
+	 * including the parts of partly moving edges that stay in place.
+	 *
+	 * @return covered area in model coordinates or null if no element of
+	 *         the preview can be drawn
+	 */
+	Rectangle getArea() {
+		if (bounds == null) {
+			return null;
+		}
+		Rectangle area = new Rectangle(bounds);
+		area.add(new Rectangle(bounds.x + dx, bounds.y + dy, bounds.width, bounds.height));
+		return area;
+	}
+
+	/**
+	 * Sets the offset by which the elements are shown translated.
+	 *
+	 * @param dx
+	 *                offset on the x axis
+	 * @param dy
+	 *                offset on the y axis
+	 */
+	void setOffset(int dx, int dy) {
+		int ddx = dx - this.dx;
+		int ddy = dy - this.dy;
+		for (GraphicalNode node : movedCopies) {
+			node.translate(ddx, ddy);
+		}
+		for (GraphicalEdge edge : movedBreakpointCopies) {
+			edge.translateBreakpoints(ddx, ddy);
+		}
+		this.dx = dx;
+		this.dy = dy;
+	}
+
+	/**
+	 * Draws the preview.
+	 *
+	 * @param graphics
+	 *                graphics object with the document transform applied
+	 * @param renderingOptions
+	 *                settings that influence the drawing process
+	 * @param detailLevel
+	 *                amount of detail that should be drawn
+	 * @param edgeBatch
+	 *                empty batch used to draw edges
+	 */
+	void draw(Graphics2D graphics, RenderingOptions renderingOptions, DetailLevel detailLevel,
+			EdgeBatch edgeBatch) {
+		for (GraphicalEdge edge : stretchedEdges) {
+			edgeBatch.add(edge, true, detailLevel);
+		}
+		edgeBatch.draw(graphics, renderingOptions, detailLevel);
+
+		graphics.translate(dx, dy);
+		for (GraphicalEdge edge : rigidEdges) {
+			edgeBatch.add(edge, true, detailLevel);
+		}
+		edgeBatch.draw(graphics, renderingOptions, detailLevel);
+		for (GraphicalElement node : rigidNodes) {
+			node.draw(graphics, renderingOptions, detailLevel);
+		}
+		graphics.translate(-dx, -dy);
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
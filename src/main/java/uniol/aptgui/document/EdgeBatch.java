@@ -0,0 +1,138 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import uniol.aptgui.document.graphical.edges.GraphicalEdge;
+
+/**
+ * Collects edges and draws them with as few calls as possible. Edges are
+ * grouped by the color they are drawn in; the shafts of each group are drawn
+ * as a single path and the arrowheads of each group are filled as a single
+ * path. Labels and selection markers are drawn per edge afterwards.
+ */
+public class EdgeBatch {
+
+	/**
+	 * Number of color groups that are kept between frames.
+	 */
+	private static final int MAX_RETAINED_GROUPS = 16;
+
+	private final Map<Color, Group> groups = new LinkedHashMap<>();
+	private final List<GraphicalEdge> decoratedEdges = new ArrayList<>();
+	private final List<Color> decorationColors = new ArrayList<>();
+
+	/**
+	 * Adds an edge to the batch.
+	 *
+	 * @param edge
+	 *                edge to add; it is skipped if it is invisible
+	 * @param highlights
+	 *                true if highlight states should be respected
+	 * @param detailLevel
+	 *                amount of detail that should be drawn
+	 */
+	public void add(GraphicalEdge edge, boolean highlights, DetailLevel detailLevel) {
+		if (!edge.isVisible()) {
+			return;
+		}
+		Color color = highlights ? edge.getDrawingColor() : edge.getColor();
+		Group group = groups.get(color);
+		if (group == null) {
+			group = new Group();
+			groups.put(color, group);
+		}
+		boolean arrowheads = (detailLevel != DetailLevel.MINIMAL);
+		edge.appendShape(group.shafts, arrowheads ? group.arrowheads : null);
+		group.empty = false;
+		if (detailLevel == DetailLevel.FULL || edge.isSelected()) {
+			decoratedEdges.add(edge);
+			decorationColors.add(color);
+		}
+	}
+
+	/**
+	 * Draws all edges that were added and clears the batch.
+	 *
+	 * @param graphics
+	 *                graphics object to draw to
+	 * @param renderingOptions
+	 *                settings that influence the drawing process
+	 * @param detailLevel
+	 *                amount of detail that should be drawn
+	 */
+	public void draw(Graphics2D graphics, RenderingOptions renderingOptions, DetailLevel detailLevel) {
+		for (Map.Entry<Color, Group> entry : groups.entrySet()) {
+			Group group = entry.getValue();
+			if (group.empty) {
+				continue;
+			}
+			graphics.setColor(entry.getKey());
+			graphics.draw(group.shafts);
+			if (detailLevel != DetailLevel.MINIMAL) {
+				GraphicalEdge.drawArrowheads(graphics, group.arrowheads);
+			}
+		}
+		for (int i = 0; i < decoratedEdges.size(); i++) {
+			graphics.setColor(decorationColors.get(i));
+			decoratedEdges.get(i).drawDecorations(graphics, renderingOptions, detailLevel);
+		}
+		clear();
+	}
+
+	/**
+	 * Removes all edges from the batch.
+	 */
+	public void clear() {
+		if (groups.size() > MAX_RETAINED_GROUPS) {
+			groups.clear();
+		}
+		for (Group group : groups.values()) {
+			group.reset();
+		}
+		decoratedEdges.clear();
+		decorationColors.clear();
+	}
+
+	/**
+	 * Paths of all edges of one color.
+	 */
+	private static class Group {
+		private final Path2D.Float shafts = new Path2D.Float();
+		private final Path2D.Float arrowheads = new Path2D.Float();
+		private boolean empty = true;
+
+		private void reset() {
+			shafts.reset();
+			arrowheads.reset();
+			empty = true;
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,394 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records timing statistics of painted frames. A frame is enclosed by
+ * {@link #beginFrame()} and {@link #endFrame()}; in between, the time spent in
+ * named sections (e.g. the grid or a type of element) and the number of drawn
+ * elements can be added. The statistics of the last {@link #HISTORY_SIZE}
+ * frames are kept and can be written to a CSV file.
+ */
+public class PaintProfiler {
+
+	/**
+	 * Number of frames that are kept.
+	 */
+	public static final int HISTORY_SIZE = 600;
+
+	/**
+	 * Upper bounds in milliseconds of the frame time histogram buckets. The
+	 * last bucket has no upper bound.
+	 */
+	private static final double[] HISTOGRAM_BOUNDS = { 1, 2, 4, 8, 16, 33, 66 };
+
+	/**
+	 * Ring buffer of recorded frames.
+	 */
+	private final FrameStatistics[] history = new FrameStatistics[HISTORY_SIZE];
+
+	/**
+	 * Index of the oldest frame in the ring buffer.
+	 */
+	private int historyStart;
+
+	/**
+	 * Number of frames in the ring buffer.
+	 */
+	private int historySize;
+
+	/**
+	 * Number of frames recorded so far.
+	 */
+	private long frameCount;
+
+	/**
+	 * Frame that is currently recorded or null.
+	 */
+	private FrameStatistics current;
+
+	/**
+	 * Value of System.nanoTime() when the current frame started.
+	 */
+	private long frameStart;
+
+	/**
+	 * Allocated bytes of the painting thread when the current frame
+	 * started or -1 if unknown.
+	 */
+	private long allocatedAtStart;
+
+	/**
+	 * Starts recording a new frame.
+	 */
+	public void beginFrame() {
+		current = new FrameStatistics(++frameCount, System.currentTimeMillis());
+		allocatedAtStart = getAllocatedBytes();
+		frameStart = System.nanoTime();
+	}
+
+	/**
+	 * Returns true if a frame is currently being recorded.
+	 *
+	 * @return true between {@link #beginFrame()} and {@link #endFrame()}
+	 */
+	public boolean isRecording() {
+		return current != null;
+	}
+
+	/**
+	 * Adds the time from the given start time until now to the given
+	 * section of the current frame. Does nothing if no frame is recorded.
+	 *
+	 * @param section
+	 *                name of the section
+	 * @param startNanos
+	 *                start time as returned by {@link System#nanoTime()}
+	 * @return the current time, which can be used as start time of the
+	 *         next section
+	 */
+	public long addTime(String section, long startNanos) {
+		return addDuration(section, startNanos);
+	}
+
+	/**
+	 * Adds the time from the given start time until now to the section of
+	 * the given element type. The section is named after the simple class
+	 * name, which is only looked up when the statistics are read, so this
+	 * is cheap enough to be called while drawing elements.
+	 *
+	 * @param type
+	 *                type of the drawn elements
+	 * @param startNanos
+	 *                start time as returned by {@link System#nanoTime()}
+	 * @return the current time, which can be used as start time of the
+	 *         next section
+	 */
+	public long addTime(Class<?> type, long startNanos) {
+		return addDuration(type, startNanos);
+	}
+
+	private long addDuration(Object section, long startNanos) {
+		long now = System.nanoTime();
+		if (current != null) {
+			Long sum = current.sections.get(section);
+			long duration = now - startNanos;
+			current.sections.put(section, (sum == null) ? duration : sum + duration);
+		}
+		return now;
+	}
+
+	/**
+	 * Adds to the number of elements drawn in the current frame.
+	 *
+	 * @param count
+	 *                number of drawn elements
+	 */
+	public void addElements(int count) {
+		if (current != null) {
+			current.elementCount += count;
+		}
+	}
+
+	/**
+	 * Finishes the current frame and adds it to the history.
+	 */
+	public void endFrame() {
+		if (current == null) {
+			return;
+		}
+		current.totalNanos = System.nanoTime() - frameStart;
+		long allocatedAtEnd = getAllocatedBytes();
+		if (allocatedAtStart >= 0 && allocatedAtEnd >= 0) {
+			current.allocatedBytes = allocatedAtEnd - allocatedAtStart;
+		}
+
+		int index = (historyStart + historySize) % HISTORY_SIZE;
+		history[index] = current;
+		if (historySize < HISTORY_SIZE) {
+			historySize++;
+		} else {
+			historyStart = (historyStart + 1) % HISTORY_SIZE;
+		}
+		current = null;
+	}
+
+	/**
+	 * Returns the statistics of the last completed frame.
+	 *
+	 * @return last frame or null if no frame was recorded yet
+	 */
+	public FrameStatistics getLastFrame() {
+		if (historySize == 0) {
+			return null;
+		}
+		return history[(historyStart + historySize - 1) % HISTORY_SIZE];
+	}
+
+	/**
+	 * Returns the statistics of all frames in the history, oldest first.
+	 *
+	 * @return list of frames
+	 */
+	public List<FrameStatistics> getFrames() {
+		List<FrameStatistics> frames = new ArrayList<>(historySize);
+		for (int i = 0; i < historySize; i++) {
+			frames.add(history[(historyStart + i) % HISTORY_SIZE]);
+		}
+		return frames;
+	}
+
+	/**
+	 * Returns a histogram of the total frame times in the history. Bucket
+	 * i counts frames that took less than {@link #getHistogramBound(int)}
+	 * milliseconds and at least as long as the bound of bucket i - 1.
+	 *
+	 * @return number of frames per bucket
+	 */
+	public int[] getHistogram() {
+		int[] buckets = new int[HISTOGRAM_BOUNDS.length + 1];
+		for (int i = 0; i < historySize; i++) {
+			double millis = history[(historyStart + i) % HISTORY_SIZE].getTotalMillis();
+			int bucket = 0;
+			while (bucket < HISTOGRAM_BOUNDS.length && millis >= HISTOGRAM_BOUNDS[bucket]) {
+				bucket++;
+			}
+			buckets[bucket]++;
+		}
+		return buckets;
+	}
+
+	/**
+	 * Returns the upper bound of the given histogram bucket.
+	 *
+	 * @param bucket
+	 *                bucket index
+	 * @return upper bound in milliseconds or positive infinity for the
+	 *         last bucket
+	 */
+	public static double getHistogramBound(int bucket) {
+		if (bucket < HISTOGRAM_BOUNDS.length) {
+			return HISTOGRAM_BOUNDS[bucket];
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Writes the statistics of all frames in the history as comma
+	 * separated values. Times are given in milliseconds; each section gets
+	 * its own column.
+	 *
+	 * @param writer
+	 *                writer to write to
+	 * @throws IOException
+	 *                 if writing fails
+	 */
+	public void writeCsv(Writer writer) throws IOException {
+		List<FrameStatistics> frames = getFrames();
+		Set<String> sections = new LinkedHashSet<>();
+		for (FrameStatistics frame : frames) {
+			sections.addAll(frame.getSections());
+		}
+
+		writer.write("frame,timestamp,total_ms,elements,allocated_bytes");
+		for (String section : sections) {
+			writer.write(",");
+			writer.write(section.replace(',', ' ') + "_ms");
+		}
+		writer.write(System.lineSeparator());
+
+		for (FrameStatistics frame : frames) {
+			writer.write(String.format(Locale.ROOT, "%d,%d,%.3f,%d,%d", frame.number, frame.timestamp,
+					frame.getTotalMillis(), frame.elementCount, frame.allocatedBytes));
+			for (String section : sections) {
+				writer.write(String.format(Locale.ROOT, ",%.3f", frame.getSectionMillis(section)));
+			}
+			writer.write(System.lineSeparator());
+		}
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread so far
+	 * if the JVM supports measuring it.
+	 *
+	 * @return allocated bytes or -1
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+				return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Statistics of a single frame.
+	 */
+	public static class FrameStatistics {
+		private final long number;
+		private final long timestamp;
+		/**
+		 * Time per section, keyed by section name or element class.
+		 */
+		private final Map<Object, Long> sections = new LinkedHashMap<>();
+		private long totalNanos;
+		private int elementCount;
+		private long allocatedBytes = -1;
+
+		private FrameStatistics(long number, long timestamp) {
+			this.number = number;
+			this.timestamp = timestamp;
+		}
+
+		/**
+		 * Returns the sequence number of this frame.
+		 *
+		 * @return frame number starting at 1
+		 */
+		public long getNumber() {
+			return number;
+		}
+
+		/**
+		 * Returns the total paint time.
+		 *
+		 * @return total paint time in milliseconds
+		 */
+		public double getTotalMillis() {
+			return totalNanos / 1e6;
+		}
+
+		/**
+		 * Returns the time spent in the given section.
+		 *
+		 * @param section
+		 *                section name
+		 * @return time in milliseconds, 0 if the section was not
+		 *         recorded in this frame
+		 */
+		public double getSectionMillis(String section) {
+			long nanos = 0;
+			for (Map.Entry<Object, Long> entry : sections.entrySet()) {
+				if (getSectionName(entry.getKey()).equals(section)) {
+					nanos += entry.getValue();
+				}
+			}
+			return nanos / 1e6;
+		}
+
+		/**
+		 * Returns the names of all sections recorded in this frame.
+		 *
+		 * @return section names in recording order
+		 */
+		public Set<String> getSections() {
+			Set<String> names = new LinkedHashSet<>();
+			for (Object section : sections.keySet()) {
+				names.add(getSectionName(section));
+			}
+			return Collections.unmodifiableSet(names);
+		}
+
+		private static String getSectionName(Object section) {
+			if (section instanceof Class) {
+				return ((Class<?>) section).getSimpleName();
+			}
+			return (String) section;
+		}
+
+		/**
+		 * Returns the number of elements drawn in this frame.
+		 *
+		 * @return number of drawn elements
+		 */
+		public int getElementCount() {
+			return elementCount;
+		}
+
+		/**
+		 * Returns an estimate of the memory allocated while painting
+		 * this frame.
+		 *
+		 * @return allocated bytes or -1 if unknown
+		 */
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,183 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import uniol.aptgui.document.graphical.GraphicalElement;
+import uniol.aptgui.document.graphical.nodes.GraphicalNode;
+
+/**
+ * Off-screen buffer that maps each pixel of the viewport to the element
+ * covering it. Every element is rendered with its index encoded as color
+ * into an image, so that finding the element at a point is a single pixel
+ * lookup regardless of how many elements overlap there. Nodes are rendered
+ * after edges, so they take precedence.
+ */
+public class PickingBuffer {
+
+	/**
+	 * Maximum number of elements that can be encoded in the 24 bit RGB
+	 * value of a pixel. The value 0 is reserved for the background.
+	 */
+	private static final int MAX_ELEMENTS = 0xFFFFFF;
+
+	/**
+	 * Elements indexed by their id minus one.
+	 */
+	private final List<GraphicalElement> table = new ArrayList<>();
+
+	private BufferedImage image;
+	private int[] pixels;
+	private Viewport viewport;
+	private long revision = -1;
+	private boolean complete;
+
+	/**
+	 * Returns true if the buffer was built for the given viewport and
+	 * revision.
+	 *
+	 * @param viewport
+	 *                current viewport
+	 * @param revision
+	 *                current geometry revision of the document
+	 * @return true if the buffer does not need to be rebuilt
+	 */
+	public boolean isUpToDate(Viewport viewport, long revision) {
+		return this.revision == revision && viewport.equals(this.viewport);
+	}
+
+	/**
+	 * Returns true if all elements could be rendered during the last
+	 * rebuild. Otherwise the buffer cannot be used for lookups.
+	 *
+	 * @return true if lookups are possible
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Renders the given elements into the buffer.
+	 *
+	 * @param elements
+	 *                elements to render; should contain at least all
+	 *                elements in the viewport
+	 * @param viewport
+	 *                viewport that determines size and transform of the
+	 *                buffer
+	 * @param revision
+	 *                geometry revision of the document
+	 */
+	public void rebuild(Collection<GraphicalElement> elements, Viewport viewport, long revision) {
+		this.viewport = new Viewport(viewport);
+		this.revision = revision;
+		this.complete = false;
+		table.clear();
+
+		int width = viewport.getWidth();
+		int height = viewport.getHeight();
+		if (width <= 0 || height <= 0 || elements.size() > MAX_ELEMENTS) {
+			return;
+		}
+		if (image == null || image.getWidth() != width || image.getHeight() != height) {
+			image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		}
+
+		Graphics2D graphics = image.createGraphics();
+		try {
+			graphics.setBackground(Color.BLACK);
+			graphics.clearRect(0, 0, width, height);
+			graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+			graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+			graphics.transform(viewport.getAffineTransform());
+			if (!render(graphics, elements, false) || !render(graphics, elements, true)) {
+				table.clear();
+				return;
+			}
+		} finally {
+			graphics.dispose();
+		}
+		complete = true;
+	}
+
+	/**
+	 * Renders either all nodes or all other elements of the collection.
+	 *
+	 * @return false if an element has no pick area
+	 */
+	private boolean render(Graphics2D graphics, Collection<GraphicalElement> elements, boolean nodes) {
+		for (GraphicalElement elem : elements) {
+			if ((elem instanceof GraphicalNode) != nodes) {
+				continue;
+			}
+			Shape area = elem.getPickArea();
+			if (area == null) {
+				return false;
+			}
+			table.add(elem);
+			graphics.setColor(new Color(table.size()));
+			graphics.fill(area);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the given point lies inside of the buffer.
+	 *
+	 * @param viewPoint
+	 *                point in view coordinates
+	 * @return true if {@link #getElementAt(Point)} can answer for the
+	 *         point
+	 */
+	public boolean contains(Point viewPoint) {
+		return complete && viewPoint.x >= 0 && viewPoint.y >= 0 && viewPoint.x < image.getWidth()
+				&& viewPoint.y < image.getHeight();
+	}
+
+	/**
+	 * Returns the element that covers the given point.
+	 *
+	 * @param viewPoint
+	 *                point in view coordinates inside of the buffer
+	 * @return the element or null if there is none
+	 */
+	public GraphicalElement getElementAt(Point viewPoint) {
+		assert contains(viewPoint);
+		int id = pixels[viewPoint.y * image.getWidth() + viewPoint.x] & 0xFFFFFF;
+		if (id == 0) {
+			return null;
+		}
+		return table.get(id - 1);
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -19,17 +19,15 @@
 
 package uniol.aptgui.document;
 
-import java.awt.Graphics2D;
 import java.util.HashMap;
 import java.util.Map;
 
 import uniol.apt.adt.pn.Flow;
-import uniol.apt.adt.pn.Marking;
 import uniol.apt.adt.pn.Node;
 import uniol.apt.adt.pn.PetriNet;
 import uniol.apt.adt.pn.Place;
-import uniol.apt.adt.pn.Token;
 import uniol.apt.adt.pn.Transition;
+import uniol.aptgui.document.graphical.GraphicalElement;
 import uniol.aptgui.document.graphical.edges.GraphicalFlow;
 import uniol.aptgui.document.graphical.nodes.GraphicalNode;
 import uniol.aptgui.document.graphical.nodes.GraphicalPlace;
@@ -69,22 +67,18 @@ public class PnDocument extends Document<PetriNet> {
 	}
 
 	@Override
-	public void draw(Graphics2D graphics, RenderingOptions renderingOptions) {
-		Marking marking = getModel().getInitialMarking();
-		for (Place place : getModel().getPlaces()) {
-			GraphicalPlace elem = getGraphicalExtension(place);
-			Token token = marking.getToken(place);
-			elem.setTokens(token.getValue());
+	public void updateGraphicalElement(GraphicalElement graphicalElem) {
+		Object modelElem = getAssociatedModelElement(graphicalElem);
+		if (modelElem instanceof Place) {
+			Place place = (Place) modelElem;
+			((GraphicalPlace) graphicalElem).setTokens(place.getInitialToken().getValue());
+		} else if (modelElem instanceof Transition) {
+			Transition transition = (Transition) modelElem;
+			((GraphicalTransition) graphicalElem).setLabel(transition.getLabel());
+		} else if (modelElem instanceof Flow) {
+			Flow flow = (Flow) modelElem;
+			((GraphicalFlow) graphicalElem).setMultiplicity(flow.getWeight());
 		}
-		for (Transition transition : getModel().getTransitions()) {
-			GraphicalTransition elem = getGraphicalExtension(transition);
-			elem.setLabel(transition.getLabel());
-		}
-		for (Flow flow : getModel().getEdges()) {
-			GraphicalFlow elem = getGraphicalExtension(flow);
-			elem.setMultiplicity(flow.getWeight());
-		}
-		super.draw(graphics, renderingOptions);
 	}
 
 }
@@ -30,6 +30,10 @@ public class RenderingOptions {
 	private static final String PREF_KEY_PLACE = "placeIdLabelVisible";
 	private static final String PREF_KEY_TRANSITION = "transitionIdLabelVisible";
 	private static final String PREF_KEY_GRID = "gridVisible";
+	private static final String PREF_KEY_LOD = "levelOfDetailEnabled";
+	private static final String PREF_KEY_BACKGROUND = "backgroundRenderingEnabled";
+	private static final String PREF_KEY_PICKING_BUFFER = "pickingBufferEnabled";
+	private static final String PREF_KEY_MAX_FRAME_RATE = "maxFrameRate";
 	private static final String PREF_KEY_EXP_BORDER = "exportDocumentBorderSize";
 	private static final String PREF_KEY_EXP_MAGNIFICATION = "exportBitmapMagnification";
 
@@ -49,6 +53,10 @@ public class RenderingOptions {
 		boolean p = prefs.getBoolean(PREF_KEY_PLACE, ro.isPlaceIdLabelVisible());
 		boolean t = prefs.getBoolean(PREF_KEY_TRANSITION, ro.isTransitionIdLabelVisible());
 		boolean g = prefs.getBoolean(PREF_KEY_GRID, ro.isGridVisible());
+		boolean lod = prefs.getBoolean(PREF_KEY_LOD, ro.isLevelOfDetailEnabled());
+		boolean background = prefs.getBoolean(PREF_KEY_BACKGROUND, ro.isBackgroundRenderingEnabled());
+		boolean pickingBuffer = prefs.getBoolean(PREF_KEY_PICKING_BUFFER, ro.isPickingBufferEnabled());
+		int maxFrameRate = prefs.getInt(PREF_KEY_MAX_FRAME_RATE, ro.getMaxFrameRate());
 		int expBorder = prefs.getInt(PREF_KEY_EXP_BORDER, ro.getExportDocumentBorderSize());
 		int expMagnification = prefs.getInt(PREF_KEY_EXP_MAGNIFICATION, ro.getExportBitmapMagnification());
 
@@ -57,6 +65,10 @@ public class RenderingOptions {
 		ro.setPlaceIdLabelVisible(p);
 		ro.setTransitionIdLabelVisible(t);
 		ro.setGridVisible(g);
+		ro.setLevelOfDetailEnabled(lod);
+		ro.setBackgroundRenderingEnabled(background);
+		ro.setPickingBufferEnabled(pickingBuffer);
+		ro.setMaxFrameRate(maxFrameRate);
 		ro.setExportDocumentBorderSize(expBorder);
 		ro.setExportBitmapMagnification(expMagnification);
 		return ro;
@@ -66,6 +78,13 @@ public class RenderingOptions {
 	private boolean placeIdLabelVisible;
 	private boolean transitionIdLabelVisible;
 	private boolean gridVisible;
+	private boolean levelOfDetailEnabled;
+	private boolean backgroundRenderingEnabled;
+	private boolean pickingBufferEnabled;
+	private int maxFrameRate;
+	private boolean paintStatisticsVisible;
+	private double reducedDetailScale;
+	private double minimalDetailScale;
 	private int exportDocumentBorderSize;
 	private int exportBitmapMagnification;
 
@@ -77,10 +96,36 @@ public class RenderingOptions {
 		this.placeIdLabelVisible = true;
 		this.transitionIdLabelVisible = true;
 		this.gridVisible = false;
+		this.levelOfDetailEnabled = true;
+		this.reducedDetailScale = 0.5;
+		this.minimalDetailScale = 0.25;
+		this.maxFrameRate = 0;
 		this.exportDocumentBorderSize = 20;
 		this.exportBitmapMagnification = 3;
 	}
 
+	/**
+	 * Copy constructor.
+	 *
+	 * @param ro
+	 *                RenderingOptions object to copy
+	 */
+	public RenderingOptions(RenderingOptions ro) {
+		this.stateIdLabelVisible = ro.stateIdLabelVisible;
+		this.placeIdLabelVisible = ro.placeIdLabelVisible;
+		this.transitionIdLabelVisible = ro.transitionIdLabelVisible;
+		this.gridVisible = ro.gridVisible;
+		this.levelOfDetailEnabled = ro.levelOfDetailEnabled;
+		this.backgroundRenderingEnabled = ro.backgroundRenderingEnabled;
+		this.pickingBufferEnabled = ro.pickingBufferEnabled;
+		this.reducedDetailScale = ro.reducedDetailScale;
+		this.minimalDetailScale = ro.minimalDetailScale;
+		this.maxFrameRate = ro.maxFrameRate;
+		this.paintStatisticsVisible = ro.paintStatisticsVisible;
+		this.exportDocumentBorderSize = ro.exportDocumentBorderSize;
+		this.exportBitmapMagnification = ro.exportBitmapMagnification;
+	}
+
 	/**
 	 * Saves the attributes of this RenderingOptions object to the user
 	 * preferences store.
@@ -91,6 +136,10 @@ public class RenderingOptions {
 		prefs.putBoolean(PREF_KEY_PLACE, placeIdLabelVisible);
 		prefs.putBoolean(PREF_KEY_TRANSITION, transitionIdLabelVisible);
 		prefs.putBoolean(PREF_KEY_GRID, gridVisible);
+		prefs.putBoolean(PREF_KEY_LOD, levelOfDetailEnabled);
+		prefs.putBoolean(PREF_KEY_BACKGROUND, backgroundRenderingEnabled);
+		prefs.putBoolean(PREF_KEY_PICKING_BUFFER, pickingBufferEnabled);
+		prefs.putInt(PREF_KEY_MAX_FRAME_RATE, maxFrameRate);
 	}
 
 	public boolean isStateIdLabelVisible() {
@@ -145,6 +194,127 @@ public class RenderingOptions {
 		return gridVisible;
 	}
 
+	public boolean isLevelOfDetailEnabled() {
+		return levelOfDetailEnabled;
+	}
+
+	public void setLevelOfDetailEnabled(boolean levelOfDetailEnabled) {
+		this.levelOfDetailEnabled = levelOfDetailEnabled;
+	}
+
+	public boolean toggleLevelOfDetailEnabled() {
+		levelOfDetailEnabled = !levelOfDetailEnabled;
+		return levelOfDetailEnabled;
+	}
+
+	/**
+	 * Returns true if the static parts of documents are rasterized on a
+	 * background thread instead of the Event Dispatch Thread.
+	 *
+	 * @return true if background rendering is enabled
+	 */
+	public boolean isBackgroundRenderingEnabled() {
+		return backgroundRenderingEnabled;
+	}
+
+	public void setBackgroundRenderingEnabled(boolean backgroundRenderingEnabled) {
+		this.backgroundRenderingEnabled = backgroundRenderingEnabled;
+	}
+
+	public boolean toggleBackgroundRenderingEnabled() {
+		backgroundRenderingEnabled = !backgroundRenderingEnabled;
+		return backgroundRenderingEnabled;
+	}
+
+	/**
+	 * Returns true if documents use an off-screen picking buffer to find
+	 * the element under the mouse cursor.
+	 *
+	 * @return true if the picking buffer is enabled
+	 */
+	public boolean isPickingBufferEnabled() {
+		return pickingBufferEnabled;
+	}
+
+	public void setPickingBufferEnabled(boolean pickingBufferEnabled) {
+		this.pickingBufferEnabled = pickingBufferEnabled;
+	}
+
+	public boolean togglePickingBufferEnabled() {
+		pickingBufferEnabled = !pickingBufferEnabled;
+		return pickingBufferEnabled;
+	}
+
+	/**
+	 * Returns the maximum number of times per second an editor window gets
+	 * repainted.
+	 *
+	 * @return maximum frame rate or 0 to use the display refresh rate
+	 */
+	public int getMaxFrameRate() {
+		return maxFrameRate;
+	}
+
+	public void setMaxFrameRate(int maxFrameRate) {
+		this.maxFrameRate = maxFrameRate;
+	}
+
+	/**
+	 * Returns true if paint times are recorded and shown on top of the
+	 * editor. This option is not saved to the user preferences.
+	 *
+	 * @return true if paint statistics are shown
+	 */
+	public boolean isPaintStatisticsVisible() {
+		return paintStatisticsVisible;
+	}
+
+	public void setPaintStatisticsVisible(boolean paintStatisticsVisible) {
+		this.paintStatisticsVisible = paintStatisticsVisible;
+	}
+
+	public boolean togglePaintStatisticsVisible() {
+		paintStatisticsVisible = !paintStatisticsVisible;
+		return paintStatisticsVisible;
+	}
+
+	public double getReducedDetailScale() {
+		return reducedDetailScale;
+	}
+
+	public void setReducedDetailScale(double reducedDetailScale) {
+		this.reducedDetailScale = reducedDetailScale;
+	}
+
+	public double getMinimalDetailScale() {
+		return minimalDetailScale;
+	}
+
+	public void setMinimalDetailScale(double minimalDetailScale) {
+		this.minimalDetailScale = minimalDetailScale;
+	}
+
+	/**
+	 * Returns the amount of detail that should be drawn at the given
+	 * viewport scale.
+	 *
+	 * @param scale
+	 *                viewport scale
+	 * @return detail level for the scale
+	 */
+	public DetailLevel getDetailLevel(double scale) {
+		if (!levelOfDetailEnabled) {
+			return DetailLevel.FULL;
+		}
+		if (scale < minimalDetailScale) {
+			return DetailLevel.MINIMAL;
+		}
+		if (scale < reducedDetailScale) {
+			return DetailLevel.REDUCED;
+		}
+		return DetailLevel.FULL;
+	}
+
 	public int getExportDocumentBorderSize() {
 		return exportDocumentBorderSize;
 	}
@@ -0,0 +1,368 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import uniol.aptgui.document.graphical.GraphicalElement;
+import uniol.aptgui.document.graphical.edges.GraphicalEdge;
+
+/**
+ * <p>
+ * Uniform grid that partitions the model coordinate space into square cells
+ * and remembers which GraphicalElements occupy which cells. It is used to
+ * answer "which elements are at this position" queries without testing every
+ * element of a document.
+ * </p>
+ *
+ * <p>
+ * Nodes are registered in all cells their bounding box overlaps. Edges are
+ * registered segment by segment, so a long diagonal edge only occupies the
+ * cells along its path instead of every cell of its bounding box. The index
+ * does not observe the elements itself; whoever changes an element must call
+ * {@link #update(GraphicalElement)} afterwards.
+ * </p>
+ */
+public class SpatialIndex {
+
+	/**
+	 * Default side length of a grid cell in model coordinates.
+	 */
+	public static final int DEFAULT_CELL_SIZE = 100;
+
+	/**
+	 * Side length of a grid cell in model coordinates.
+	 */
+	private final int cellSize;
+
+	/**
+	 * Map from cell keys to the elements occupying that cell.
+	 */
+	private final Map<Long, List<GraphicalElement>> cells;
+
+	/**
+	 * Map from indexed elements to their registration data.
+	 */
+	private final Map<GraphicalElement, Entry> entries;
+
+	/**
+	 * Creates an empty spatial index with the default cell size.
+	 */
+	public SpatialIndex() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Creates an empty spatial index.
+	 *
+	 * @param cellSize
+	 *                side length of a grid cell in model coordinates
+	 */
+	public SpatialIndex(int cellSize) {
+		assert cellSize > 0;
+		this.cellSize = cellSize;
+		this.cells = new HashMap<>();
+		this.entries = new HashMap<>();
+	}
+
+	/**
+	 * Returns true if the given element can be inserted into the index,
+	 * i.e. all positions necessary to compute its geometry are known.
+	 *
+	 * @param elem
+	 *                element to test
+	 * @return true if the element can be indexed
+	 */
+	public static boolean isIndexable(GraphicalElement elem) {
+		if (elem instanceof GraphicalEdge) {
+			GraphicalEdge edge = (GraphicalEdge) elem;
+			return edge.getSource().getCenter() != null && edge.getTarget().getCenter() != null;
+		}
+		return elem.canDraw();
+	}
+
+	/**
+	 * Adds the given element to the index or re-registers it if it is
+	 * already contained. Elements that are not indexable are removed from
+	 * the index instead.
+	 *
+	 * @param elem
+	 *                element to (re-)index
+	 */
+	public void update(GraphicalElement elem) {
+		remove(elem);
+		if (!isIndexable(elem)) {
+			return;
+		}
+
+		Entry entry = new Entry(elem.getBounds());
+		if (elem instanceof GraphicalEdge) {
+			addEdgeCells((GraphicalEdge) elem, entry);
+		} else {
+			addRectangleCells(entry.bounds, entry);
+		}
+		for (Long key : entry.cellKeys) {
+			List<GraphicalElement> cell = cells.get(key);
+			if (cell == null) {
+				cell = new ArrayList<>(4);
+				cells.put(key, cell);
+			}
+			cell.add(elem);
+		}
+		entries.put(elem, entry);
+	}
+
+	/**
+	 * Removes the given element from the index. Does nothing if the
+	 * element is not indexed.
+	 *
+	 * @param elem
+	 *                element to remove
+	 */
+	public void remove(GraphicalElement elem) {
+		Entry entry = entries.remove(elem);
+		if (entry == null) {
+			return;
+		}
+		for (Long key : entry.cellKeys) {
+			List<GraphicalElement> cell = cells.get(key);
+			cell.remove(elem);
+			if (cell.isEmpty()) {
+				cells.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Removes all elements from the index.
+	 */
+	public void clear() {
+		cells.clear();
+		entries.clear();
+	}
+
+	/**
+	 * Returns true if the given element is currently indexed.
+	 *
+	 * @param elem
+	 *                element to look for
+	 * @return true if the element is indexed
+	 */
+	public boolean contains(GraphicalElement elem) {
+		return entries.containsKey(elem);
+	}
+
+	/**
+	 * Returns the amount of indexed elements.
+	 *
+	 * @return the amount of indexed elements
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the bounds the given element had when it was last indexed.
+	 *
+	 * @param elem
+	 *                indexed element
+	 * @return bounds at indexing time or null if the element is not indexed
+	 */
+	public Rectangle getIndexedBounds(GraphicalElement elem) {
+		Entry entry = entries.get(elem);
+		if (entry == null) {
+			return null;
+		}
+		return entry.bounds;
+	}
+
+	/**
+	 * Returns all elements that might cover the given point. This is a
+	 * superset of the elements that actually cover the point, so callers
+	 * still need to test each candidate with
+	 * {@link GraphicalElement#coversPoint(Point)}.
+	 *
+	 * @param point
+	 *                test point in model coordinates
+	 * @return unmodifiable list of candidates
+	 */
+	public List<GraphicalElement> getCandidatesAt(Point point) {
+		List<GraphicalElement> cell = cells.get(cellKey(cellIndex(point.x), cellIndex(point.y)));
+		if (cell == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(cell);
+	}
+
+	/**
+	 * Adds all elements whose indexed bounds intersect the given area to
+	 * the result set.
+	 *
+	 * @param area
+	 *                query area in model coordinates
+	 * @param result
+	 *                set that the found elements are added to
+	 */
+	public void query(Rectangle area, Set<GraphicalElement> result) {
+		int minX = cellIndex(area.x);
+		int minY = cellIndex(area.y);
+		int maxX = cellIndex(area.x + area.width);
+		int maxY = cellIndex(area.y + area.height);
+		long cellCount = (long) (maxX - minX + 1) * (maxY - minY + 1);
+		if (cellCount > cells.size()) {
+			// The area spans more cells than are occupied, so it is
+			// cheaper to look at the occupied cells directly.
+			for (Map.Entry<Long, List<GraphicalElement>> cell : cells.entrySet()) {
+				long key = cell.getKey();
+				int x = (int) (key >> 32);
+				int y = (int) key;
+				if (minX <= x && x <= maxX && minY <= y && y <= maxY) {
+					addIntersecting(cell.getValue(), area, result);
+				}
+			}
+		} else {
+			for (int x = minX; x <= maxX; x++) {
+				for (int y = minY; y <= maxY; y++) {
+					List<GraphicalElement> cell = cells.get(cellKey(x, y));
+					if (cell != null) {
+						addIntersecting(cell, area, result);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds all elements of the cell whose indexed bounds intersect the
+	 * area to the result set.
+	 */
+	private void addIntersecting(List<GraphicalElement> cell, Rectangle area, Set<GraphicalElement> result) {
+		for (GraphicalElement elem : cell) {
+			if (entries.get(elem).bounds.intersects(area)) {
+				result.add(elem);
+			}
+		}
+	}
+
+	/**
+	 * Registers all cells that the given rectangle overlaps.
+	 */
+	private void addRectangleCells(Rectangle rect, Entry entry) {
+		int minX = cellIndex(rect.x);
+		int minY = cellIndex(rect.y);
+		int maxX = cellIndex(rect.x + rect.width);
+		int maxY = cellIndex(rect.y + rect.height);
+		for (int x = minX; x <= maxX; x++) {
+			for (int y = minY; y <= maxY; y++) {
+				entry.cellKeys.add(cellKey(x, y));
+			}
+		}
+	}
+
+	/**
+	 * Registers all cells that are near any segment of the given edge's
+	 * path. The path is approximated by the node centers and breakpoints
+	 * which contains the actual path.
+	 */
+	private void addEdgeCells(GraphicalEdge edge, Entry entry) {
+		int margin = (int) Math.ceil(GraphicalEdge.SELECTION_DISTANCE);
+		int startX = edge.getSource().getCenterX();
+		int startY = edge.getSource().getCenterY();
+		for (int i = 0; i <= edge.getBreakpointCount(); i++) {
+			int endX, endY;
+			if (i < edge.getBreakpointCount()) {
+				endX = edge.getBreakpointX(i);
+				endY = edge.getBreakpointY(i);
+			} else {
+				endX = edge.getTarget().getCenterX();
+				endY = edge.getTarget().getCenterY();
+			}
+			addSegmentCells(startX, startY, endX, endY, margin, entry);
+			startX = endX;
+			startY = endY;
+		}
+	}
+
+	/**
+	 * Registers all cells whose area, enlarged by the margin, intersects
+	 * the segment between start and end.
+	 */
+	private void addSegmentCells(int startX, int startY, int endX, int endY, int margin, Entry entry) {
+		int minX = cellIndex(Math.min(startX, endX) - margin);
+		int minY = cellIndex(Math.min(startY, endY) - margin);
+		int maxX = cellIndex(Math.max(startX, endX) + margin);
+		int maxY = cellIndex(Math.max(startY, endY) + margin);
+		Rectangle cellRect = new Rectangle();
+		for (int x = minX; x <= maxX; x++) {
+			for (int y = minY; y <= maxY; y++) {
+				cellRect.setBounds(
+					x * cellSize - margin,
+					y * cellSize - margin,
+					cellSize + 2 * margin,
+					cellSize + 2 * margin
+				);
+				if (cellRect.intersectsLine(startX, startY, endX, endY)) {
+					Long key = cellKey(x, y);
+					if (!entry.cellKeys.contains(key)) {
+						entry.cellKeys.add(key);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the grid index of the cell that contains the given
+	 * coordinate.
+	 */
+	private int cellIndex(int coordinate) {
+		return (int) Math.floor((double) coordinate / cellSize);
+	}
+
+	/**
+	 * Combines the given cell indices into a single map key.
+	 */
+	private static Long cellKey(int x, int y) {
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Registration data of a single indexed element.
+	 */
+	private static class Entry {
+		final Rectangle bounds;
+		final List<Long> cellKeys;
+
+		Entry(Rectangle bounds) {
+			this.bounds = bounds;
+			this.cellKeys = new ArrayList<>(4);
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -19,7 +19,6 @@
 
 package uniol.aptgui.document;
 
-import java.awt.Graphics2D;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,6 +26,7 @@ import uniol.apt.adt.exception.StructureException;
 import uniol.apt.adt.ts.Arc;
 import uniol.apt.adt.ts.State;
 import uniol.apt.adt.ts.TransitionSystem;
+import uniol.aptgui.document.graphical.GraphicalElement;
 import uniol.aptgui.document.graphical.edges.GraphicalArc;
 import uniol.aptgui.document.graphical.nodes.GraphicalState;
 
@@ -58,22 +58,27 @@ public class TsDocument extends Document<TransitionSystem> {
 	}
 
 	@Override
-	public void draw(Graphics2D graphics, RenderingOptions renderingOptions) {
-		State initial = null;
-		try {
-			initial = getModel().getInitialState();
-		} catch (StructureException e) {
+	public void updateGraphicalElement(GraphicalElement graphicalElem) {
+		Object modelElem = getAssociatedModelElement(graphicalElem);
+		if (modelElem instanceof State) {
+			((GraphicalState) graphicalElem).setInitialState(modelElem == getInitialState());
+		} else if (modelElem instanceof Arc) {
+			Arc arc = (Arc) modelElem;
+			((GraphicalArc) graphicalElem).setLabel(arc.getLabel());
 		}
+	}
 
-		for (State state : getModel().getNodes()) {
-			GraphicalState elem = getGraphicalExtension(state);
-			elem.setInitialState(state == initial);
-		}
-		for (Arc arc : getModel().getEdges()) {
-			GraphicalArc elem = getGraphicalExtension(arc);
-			elem.setLabel(arc.getLabel());
+	/**
+	 * Returns the initial state of the model or null if there is none.
+	 *
+	 * @return the initial state or null
+	 */
+	private State getInitialState() {
+		try {
+			return getModel().getInitialState();
+		} catch (StructureException e) {
+			return null;
 		}
-		super.draw(graphics, renderingOptions);
 	}
 
 }
@@ -349,6 +349,38 @@ public class Viewport {
 		);
 	}
 
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + translationX;
+		result = prime * result + translationY;
+		long temp = Double.doubleToLongBits(scaleXY);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		result = prime * result + width;
+		result = prime * result + height;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		Viewport other = (Viewport) obj;
+		return translationX == other.translationX
+			&& translationY == other.translationY
+			&& Double.doubleToLongBits(scaleXY) == Double.doubleToLongBits(other.scaleXY)
+			&& width == other.width
+			&& height == other.height;
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,248 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document.graphical;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable combination of a color and visual state flags that is shared by
+ * all graphical elements that look the same. Styles are interned in a global
+ * table and elements only store the index of their style, so that identical
+ * colors, e.g. from files with many {@code col} properties, exist only once.
+ * <p>
+ * The table is shared by all documents and is never cleaned up. Its size is
+ * bounded by the number of distinct colors times the 32 flag combinations,
+ * which stays small in practice. Changing a flag of an element looks up the
+ * derived style in a per-style cache, so it does not touch the table after
+ * the first time.
+ */
+public final class ElementStyle {
+
+	public static final int VISIBLE = 1;
+	public static final int SELECTED = 1 << 1;
+	public static final int HIGHLIGHTED = 1 << 2;
+	public static final int HIGHLIGHTED_ERROR = 1 << 3;
+	public static final int HIGHLIGHTED_SUCCESS = 1 << 4;
+
+	/**
+	 * Number of flag bits.
+	 */
+	private static final int FLAG_COUNT = 5;
+
+	private static final int HIGHLIGHT_FLAGS = HIGHLIGHTED | HIGHLIGHTED_ERROR | HIGHLIGHTED_SUCCESS;
+
+	private static final Color HIGHLIGHT_COLOR = Color.BLUE;
+	private static final Color HIGHLIGHT_COLOR_ERROR = Color.RED;
+	private static final Color HIGHLIGHT_COLOR_SUCCESS = Color.GREEN;
+
+	private static final Map<ElementStyle, Integer> ids = new HashMap<>();
+
+	/**
+	 * Interned styles indexed by their id. The array is replaced when it
+	 * grows so that it can be read without locking, e.g. by the background
+	 * renderer.
+	 */
+	private static volatile ElementStyle[] table = new ElementStyle[64];
+	private static int size;
+
+	/**
+	 * Id of the style of newly created elements: visible and black.
+	 */
+	public static final int DEFAULT = intern(Color.BLACK, VISIBLE);
+
+	private final Color color;
+	private final int flags;
+	private final Color drawingColor;
+	private final int hashCode;
+
+	/**
+	 * Index of this style in the table.
+	 */
+	private int id;
+
+	/**
+	 * Ids of the styles that differ from this one in a single flag,
+	 * indexed by the bit number of the flag, or -1 if not looked up yet.
+	 * Concurrent lookups may intern the same style twice, which is
+	 * harmless since interning always yields the same id.
+	 */
+	private final int[] toggledFlagIds = new int[FLAG_COUNT];
+
+	private ElementStyle(Color color, int flags) {
+		this.color = color;
+		this.flags = flags;
+		this.drawingColor = computeDrawingColor(color, flags);
+		this.hashCode = 31 * Objects.hashCode(color) + flags;
+		Arrays.fill(toggledFlagIds, -1);
+	}
+
+	private static Color computeDrawingColor(Color color, int flags) {
+		if ((flags & HIGHLIGHTED_ERROR) != 0) {
+			return HIGHLIGHT_COLOR_ERROR;
+		} else if ((flags & HIGHLIGHTED_SUCCESS) != 0) {
+			return HIGHLIGHT_COLOR_SUCCESS;
+		} else if ((flags & HIGHLIGHTED) != 0) {
+			return HIGHLIGHT_COLOR;
+		} else {
+			return color;
+		}
+	}
+
+	/**
+	 * Returns the id of the style with the given color and flags. The style
+	 * is added to the table if it does not exist yet.
+	 *
+	 * @param color
+	 *                element color
+	 * @param flags
+	 *                combination of the flag constants of this class
+	 * @return id of the style
+	 */
+	public static synchronized int intern(Color color, int flags) {
+		ElementStyle style = new ElementStyle(color, flags);
+		Integer id = ids.get(style);
+		if (id != null) {
+			return id;
+		}
+		ElementStyle[] styles = table;
+		if (size == styles.length) {
+			styles = Arrays.copyOf(styles, 2 * size);
+		}
+		style.id = size;
+		styles[size] = style;
+		ids.put(style, size);
+		table = styles;
+		return size++;
+	}
+
+	/**
+	 * Returns the style with the given id.
+	 *
+	 * @param id
+	 *                id returned by {@link #intern(Color, int)}
+	 * @return the style
+	 */
+	public static ElementStyle get(int id) {
+		return table[id];
+	}
+
+	/**
+	 * Returns the number of styles in the table.
+	 *
+	 * @return number of interned styles
+	 */
+	public static synchronized int getStyleCount() {
+		return size;
+	}
+
+	/**
+	 * Returns the id of the style that differs from this one only in the
+	 * given flag.
+	 *
+	 * @param flag
+	 *                flag constant
+	 * @param value
+	 *                new value of the flag
+	 * @return id of the derived style
+	 */
+	public int withFlag(int flag, boolean value) {
+		int newFlags = value ? (flags | flag) : (flags & ~flag);
+		if (newFlags == flags) {
+			return id;
+		}
+		if (Integer.bitCount(flag) != 1) {
+			return intern(color, newFlags);
+		}
+		int bit = Integer.numberOfTrailingZeros(flag);
+		int id = toggledFlagIds[bit];
+		if (id < 0) {
+			id = intern(color, newFlags);
+			toggledFlagIds[bit] = id;
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the id of the style that differs from this one only in its
+	 * color.
+	 *
+	 * @param newColor
+	 *                new color
+	 * @return id of the derived style
+	 */
+	public int withColor(Color newColor) {
+		return intern(newColor, flags);
+	}
+
+	public Color getColor() {
+		return color;
+	}
+
+	public int getFlags() {
+		return flags;
+	}
+
+	public boolean hasFlag(int flag) {
+		return (flags & flag) != 0;
+	}
+
+	/**
+	 * Returns true if any of the highlight flags is set.
+	 *
+	 * @return true if the style is highlighted in any way
+	 */
+	public boolean hasHighlight() {
+		return (flags & HIGHLIGHT_FLAGS) != 0;
+	}
+
+	/**
+	 * Returns the color elements of this style are drawn in, taking the
+	 * highlight flags into account.
+	 *
+	 * @return the drawing color
+	 */
+	public Color getDrawingColor() {
+		return drawingColor;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ElementStyle)) {
+			return false;
+		}
+		ElementStyle other = (ElementStyle) obj;
+		return flags == other.flags && Objects.equals(color, other.color);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -20,83 +20,333 @@
 package uniol.aptgui.document.graphical;
 
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
-
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+
+import uniol.aptgui.document.DetailLevel;
 import uniol.aptgui.document.RenderingOptions;
 
 /**
  * Base class for graphical elements of a document. It contains basic properties
- * such as colors or highlight states.
+ * such as colors or highlight states, which are stored as a shared
+ * {@link ElementStyle}.
  */
-public abstract class GraphicalElement {
+public abstract class GraphicalElement implements Cloneable {
 
 	public static final String EXTENSION_KEY = "uniol.aptgui.editor.document.graphical.GraphicalElement";
 	public static final String EXTENSION_KEY_PERSISTENT = "properties";
 
-	private static final Color HIGHLIGHT_COLOR = Color.BLUE;
-	private static final Color HIGHLIGHT_COLOR_ERROR = Color.RED;
-	private static final Color HIGHLIGHT_COLOR_SUCCESS = Color.GREEN;
+	/**
+	 * Orders elements by their style id, so that elements that look the
+	 * same are drawn one after another without switching colors.
+	 */
+	public static final Comparator<GraphicalElement> STYLE_ORDER = new Comparator<GraphicalElement>() {
+		@Override
+		public int compare(GraphicalElement e1, GraphicalElement e2) {
+			return Integer.compare(e1.style, e2.style);
+		}
+	};
 
-	protected Color color;
-	protected boolean highlighted;
-	protected boolean highlightedError;
-	protected boolean highlightedSuccess;
-	protected boolean visible;
-	protected boolean selected;
+	/**
+	 * Id of the {@link ElementStyle} that holds the color and visual state
+	 * flags of this element.
+	 */
+	private int style;
+
+	/**
+	 * Counter that increases with every geometry change of this element.
+	 */
+	private int geometryRevision;
+
+	private GraphicalElementListener listener;
+	private TextLayoutCache textLayoutCache;
 
 	public GraphicalElement() {
-		this.color = Color.BLACK;
-		this.visible = true;
+		this.style = ElementStyle.DEFAULT;
+	}
+
+	/**
+	 * Returns the shared style of this element.
+	 *
+	 * @return the style
+	 */
+	public ElementStyle getStyle() {
+		return ElementStyle.get(style);
+	}
+
+	/**
+	 * Returns the id of the shared style of this element. Elements that
+	 * look the same have the same style id.
+	 *
+	 * @return the style id
+	 */
+	public int getStyleId() {
+		return style;
+	}
+
+	/**
+	 * Returns a counter that increases whenever the position or extent of
+	 * this element changes. It can be used to validate values that were
+	 * derived from the geometry of this element.
+	 *
+	 * @return the geometry revision
+	 */
+	public int getGeometryRevision() {
+		return geometryRevision;
+	}
+
+	private boolean setStyleId(int style) {
+		if (this.style == style) {
+			return false;
+		}
+		this.style = style;
+		return true;
+	}
+
+	private boolean setFlag(int flag, boolean value) {
+		ElementStyle current = getStyle();
+		if (current.hasFlag(flag) == value) {
+			return false;
+		}
+		return setStyleId(current.withFlag(flag, value));
 	}
 
 	public boolean isSelected() {
-		return selected;
+		return getStyle().hasFlag(ElementStyle.SELECTED);
 	}
 
 	public void setSelected(boolean selected) {
-		this.selected = selected;
+		if (setFlag(ElementStyle.SELECTED, selected)) {
+			fireAppearanceChanged();
+		}
 	}
 
 	public boolean isVisible() {
-		return visible;
+		return getStyle().hasFlag(ElementStyle.VISIBLE);
 	}
 
 	public void setVisible(boolean visible) {
-		this.visible = visible;
+		if (setFlag(ElementStyle.VISIBLE, visible)) {
+			fireAppearanceChanged();
+		}
 	}
 
 	public boolean isHighlighted() {
-		return highlighted;
+		return getStyle().hasFlag(ElementStyle.HIGHLIGHTED);
 	}
 
 	public void setHighlighted(boolean highlighted) {
-		this.highlighted = highlighted;
+		if (setFlag(ElementStyle.HIGHLIGHTED, highlighted)) {
+			fireHighlightChanged();
+		}
 	}
 
 	public boolean isHighlightedError() {
-		return highlightedError;
+		return getStyle().hasFlag(ElementStyle.HIGHLIGHTED_ERROR);
 	}
 
 	public void setHighlightedError(boolean highlightedError) {
-		this.highlightedError = highlightedError;
+		if (setFlag(ElementStyle.HIGHLIGHTED_ERROR, highlightedError)) {
+			fireHighlightChanged();
+		}
 	}
 
 	public boolean isHighlightedSuccess() {
-		return highlightedSuccess;
+		return getStyle().hasFlag(ElementStyle.HIGHLIGHTED_SUCCESS);
 	}
 
 	public void setHighlightedSuccess(boolean highlightedSuccess) {
-		this.highlightedSuccess = highlightedSuccess;
+		if (setFlag(ElementStyle.HIGHLIGHTED_SUCCESS, highlightedSuccess)) {
+			fireHighlightChanged();
+		}
 	}
 
 	public Color getColor() {
-		return color;
+		return getStyle().getColor();
 	}
 
 	public void setColor(Color color) {
-		this.color = color;
+		ElementStyle current = getStyle();
+		if (Objects.equals(current.getColor(), color)) {
+			return;
+		}
+		if (setStyleId(current.withColor(color))) {
+			fireAppearanceChanged();
+		}
+	}
+
+	/**
+	 * Returns the listener that is informed about changes to this element.
+	 *
+	 * @return the listener or null
+	 */
+	public GraphicalElementListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Sets the listener that is informed about changes to this element.
+	 * There can only be one listener at a time which is usually the
+	 * Document that contains this element.
+	 *
+	 * @param listener
+	 *                new listener or null to remove the current one
+	 */
+	public void setListener(GraphicalElementListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the cache that is used to lay out text drawn by this element.
+	 * It is usually shared by all elements of a Document.
+	 *
+	 * @param textLayoutCache
+	 *                cache or null to lay out text on every draw
+	 */
+	public void setTextLayoutCache(TextLayoutCache textLayoutCache) {
+		this.textLayoutCache = textLayoutCache;
+	}
+
+	/**
+	 * Returns a copy of this element that shares no mutable state with it,
+	 * so that it can be drawn on another thread while this element keeps
+	 * changing. Referenced elements, e.g. the nodes of an edge, are copied
+	 * as well. The copy is not connected to any Document.
+	 *
+	 * @param snapshots
+	 *                map of elements that were already copied to their
+	 *                copies; it is used to copy each element only once
+	 *                and gets extended by this method
+	 * @return copy of this element
+	 */
+	public GraphicalElement createSnapshot(Map<GraphicalElement, GraphicalElement> snapshots) {
+		GraphicalElement snapshot = snapshots.get(this);
+		if (snapshot == null) {
+			snapshot = copy(snapshots);
+			snapshots.put(this, snapshot);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Creates the copy for {@link #createSnapshot(Map)}. Subclasses with
+	 * mutable fields have to override this method and copy those fields.
+	 *
+	 * @param snapshots
+	 *                map of elements that were already copied
+	 * @return copy of this element
+	 */
+	protected GraphicalElement copy(Map<GraphicalElement, GraphicalElement> snapshots) {
+		try {
+			GraphicalElement copy = (GraphicalElement) clone();
+			copy.listener = null;
+			copy.textLayoutCache = null;
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Draws the given text with its baseline starting at the given
+	 * position using the current font of the graphics object.
+	 *
+	 * @param graphics
+	 *                graphics object to draw to
+	 * @param text
+	 *                text to draw
+	 * @param x
+	 *                x coordinate of the baseline start
+	 * @param y
+	 *                y coordinate of the baseline start
+	 */
+	protected void drawString(Graphics2D graphics, String text, float x, float y) {
+		if (!text.isEmpty()) {
+			getTextLayout(graphics, text).draw(graphics, x, y);
+		}
+	}
+
+	/**
+	 * Returns the layout of the given non-empty text for the current font
+	 * of the graphics object.
+	 *
+	 * @param graphics
+	 *                graphics object the text is drawn to
+	 * @param text
+	 *                non-empty text
+	 * @return layout of the text
+	 */
+	protected TextLayout getTextLayout(Graphics2D graphics, String text) {
+		Font font = graphics.getFont();
+		FontRenderContext frc = graphics.getFontRenderContext();
+		if (textLayoutCache == null) {
+			return new TextLayout(text, font, frc);
+		}
+		return textLayoutCache.getLayout(text, font, frc);
+	}
+
+	/**
+	 * Informs the listener that the position or extent of this element
+	 * changed. Subclasses must call this method whenever they modify
+	 * attributes that affect {@link #getBounds()} or
+	 * {@link #coversPoint(Point)}.
+	 */
+	protected void fireGeometryChanged() {
+		geometryRevision++;
+		if (listener != null) {
+			listener.onGeometryChanged(this);
+		}
+	}
+
+	/**
+	 * Informs the listener that an attribute of this element changed that
+	 * affects how it is drawn, but not its bounds.
+	 */
+	protected void fireAppearanceChanged() {
+		if (listener != null) {
+			listener.onAppearanceChanged(this);
+		}
+	}
+
+	/**
+	 * Informs the listener that one of the highlight states of this
+	 * element changed.
+	 */
+	protected void fireHighlightChanged() {
+		if (listener != null) {
+			listener.onHighlightChanged(this);
+		}
+	}
+
+	/**
+	 * Returns true if any of the highlight states is set.
+	 *
+	 * @return true if this element is highlighted in any way
+	 */
+	public boolean hasHighlight() {
+		return getStyle().hasHighlight();
+	}
+
+	/**
+	 * Draws this element with full detail using the given graphics object.
+	 * The RenderingOptions object may influence what is drawn or how it is
+	 * drawn.
+	 *
+	 * @param graphics
+	 *                graphics object
+	 * @param renderingOptions
+	 *                settings that influence the rendering
+	 */
+	public void draw(Graphics2D graphics, RenderingOptions renderingOptions) {
+		draw(graphics, renderingOptions, DetailLevel.FULL);
 	}
 
 	/**
@@ -108,19 +358,44 @@ public abstract class GraphicalElement {
 	 *                graphics object
 	 * @param renderingOptions
 	 *                settings that influence the rendering
+	 * @param detailLevel
+	 *                amount of detail that should be drawn
 	 */
-	public void draw(Graphics2D graphics, RenderingOptions renderingOptions) {
-		if (visible) {
-			if (highlightedError) {
-				graphics.setColor(HIGHLIGHT_COLOR_ERROR);
-			} else if (highlightedSuccess) {
-				graphics.setColor(HIGHLIGHT_COLOR_SUCCESS);
-			} else if (highlighted) {
-				graphics.setColor(HIGHLIGHT_COLOR);
-			} else {
-				graphics.setColor(color);
-			}
-			drawImpl(graphics, renderingOptions);
+	public void draw(Graphics2D graphics, RenderingOptions renderingOptions, DetailLevel detailLevel) {
+		ElementStyle elementStyle = getStyle();
+		if (elementStyle.hasFlag(ElementStyle.VISIBLE)) {
+			graphics.setColor(elementStyle.getDrawingColor());
+			drawImpl(graphics, renderingOptions, detailLevel);
+		}
+	}
+
+	/**
+	 * Returns the color this element is drawn in, taking its highlight
+	 * states into account.
+	 *
+	 * @return the drawing color
+	 */
+	public Color getDrawingColor() {
+		return getStyle().getDrawingColor();
+	}
+
+	/**
+	 * Draws this element in its own color, ignoring all highlight states.
+	 * This is used for cached layers that should not be invalidated when
+	 * highlights change; the highlighted version is drawn on top of it.
+	 *
+	 * @param graphics
+	 *                graphics object
+	 * @param renderingOptions
+	 *                settings that influence the rendering
+	 * @param detailLevel
+	 *                amount of detail that should be drawn
+	 */
+	public void drawUnhighlighted(Graphics2D graphics, RenderingOptions renderingOptions, DetailLevel detailLevel) {
+		ElementStyle elementStyle = getStyle();
+		if (elementStyle.hasFlag(ElementStyle.VISIBLE)) {
+			graphics.setColor(elementStyle.getColor());
+			drawImpl(graphics, renderingOptions, detailLevel);
 		}
 	}
 
@@ -133,8 +408,11 @@ public abstract class GraphicalElement {
 	 *                graphics object
 	 * @param renderingOptions
 	 *                settings that influence the rendering
+	 * @param detailLevel
+	 *                amount of detail that should be drawn
 	 */
-	protected abstract void drawImpl(Graphics2D graphics, RenderingOptions renderingOptions);
+	protected abstract void drawImpl(Graphics2D graphics, RenderingOptions renderingOptions,
+			DetailLevel detailLevel);
 
 	/**
 	 * Returns true if the given point is visually a part of the element.
@@ -147,6 +425,17 @@ public abstract class GraphicalElement {
 	 */
 	public abstract boolean coversPoint(Point point);
 
+	/**
+	 * Returns the area in which {@link #coversPoint(Point)} is true as a
+	 * shape, so that it can be rendered into a picking buffer.
+	 *
+	 * @return area in model coordinates or null if this element does not
+	 *         support picking by shape
+	 */
+	public Shape getPickArea() {
+		return null;
+	}
+
 	/**
 	 * Draws selection markers around the given center point with radius
 	 * distance.
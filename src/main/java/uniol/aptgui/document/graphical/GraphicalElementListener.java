@@ -0,0 +1,75 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document.graphical;
+
+import uniol.aptgui.document.graphical.edges.GraphicalEdge;
+import uniol.aptgui.document.graphical.nodes.GraphicalNode;
+
+/**
+ * Listener interface for objects that need to be informed when a
+ * GraphicalElement changes. Usually this is the Document that owns the
+ * element and maintains derived data structures such as the spatial index.
+ */
+public interface GraphicalElementListener {
+
+	/**
+	 * Called after the position or extent of the given element changed,
+	 * e.g. because a node was moved or a breakpoint was added to an edge.
+	 *
+	 * @param elem
+	 *                the element whose geometry changed
+	 */
+	void onGeometryChanged(GraphicalElement elem);
+
+	/**
+	 * Called after an attribute of the given element changed that affects
+	 * how it is drawn but not where, e.g. its color or highlight state.
+	 *
+	 * @param elem
+	 *                the element whose appearance changed
+	 */
+	void onAppearanceChanged(GraphicalElement elem);
+
+	/**
+	 * Called after one of the highlight states of the given element
+	 * changed.
+	 *
+	 * @param elem
+	 *                the element whose highlight state changed
+	 */
+	void onHighlightChanged(GraphicalElement elem);
+
+	/**
+	 * Called after the source or target node of the given edge was
+	 * replaced. {@link #onGeometryChanged(GraphicalElement)} is called
+	 * afterwards as well.
+	 *
+	 * @param edge
+	 *                the edge whose nodes changed
+	 * @param oldSource
+	 *                source node before the change
+	 * @param oldTarget
+	 *                target node before the change
+	 */
+	void onEdgeNodesChanged(GraphicalEdge edge, GraphicalNode oldSource, GraphicalNode oldTarget);
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,180 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document.graphical;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Least recently used cache of laid out text. Laying out text is expensive
+ * compared to drawing an existing layout, so labels that are drawn every
+ * frame should be laid out only once. Layouts are keyed by string, font and
+ * font render context; entries for fonts that are no longer used are
+ * evicted once the cache is full.
+ * <p>
+ * Since a frame looks up the labels of all visible elements in the same
+ * order each time, a cache that is smaller than the number of visible labels
+ * would never hit. Renderers therefore announce the number of elements they
+ * are about to draw through {@link #ensureCapacity(int)}.
+ */
+public class TextLayoutCache {
+
+	/**
+	 * Default maximum number of cached layouts.
+	 */
+	public static final int DEFAULT_CAPACITY = 2048;
+
+	/**
+	 * Upper bound of the number of labels a single element draws.
+	 */
+	private static final int LABELS_PER_ELEMENT = 2;
+
+	private final Map<Key, TextLayout> layouts;
+	private final int minimumCapacity;
+	private int capacity;
+
+	/**
+	 * Creates a cache with the default capacity.
+	 */
+	public TextLayoutCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a cache that holds at most the given number of layouts.
+	 *
+	 * @param capacity
+	 *                maximum number of cached layouts
+	 */
+	public TextLayoutCache(int capacity) {
+		this.minimumCapacity = capacity;
+		this.capacity = capacity;
+		this.layouts = new LinkedHashMap<Key, TextLayout>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, TextLayout> eldest) {
+				return size() > TextLayoutCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Adjusts the capacity so that the labels of the given number of
+	 * elements fit into the cache. The capacity never drops below the one
+	 * given to the constructor; surplus layouts are evicted when it shrinks.
+	 *
+	 * @param elementCount
+	 *                number of elements that are drawn per frame
+	 */
+	public void ensureCapacity(int elementCount) {
+		capacity = (int) Math.max(minimumCapacity, Math.min(Integer.MAX_VALUE,
+				(long) elementCount * LABELS_PER_ELEMENT));
+		Iterator<Key> it = layouts.keySet().iterator();
+		for (int excess = layouts.size() - capacity; excess > 0; excess--) {
+			it.next();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Returns the maximum number of cached layouts.
+	 *
+	 * @return current capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the layout of the given text, creating it if it is not cached
+	 * yet.
+	 *
+	 * @param text
+	 *                non-empty text to lay out
+	 * @param font
+	 *                font to use
+	 * @param frc
+	 *                font render context of the target graphics object
+	 * @return layout of the text
+	 */
+	public TextLayout getLayout(String text, Font font, FontRenderContext frc) {
+		Key key = new Key(text, font, frc);
+		TextLayout layout = layouts.get(key);
+		if (layout == null) {
+			layout = new TextLayout(text, font, frc);
+			layouts.put(key, layout);
+		}
+		return layout;
+	}
+
+	/**
+	 * Returns the number of cached layouts.
+	 *
+	 * @return number of cached layouts
+	 */
+	public int size() {
+		return layouts.size();
+	}
+
+	/**
+	 * Removes all cached layouts.
+	 */
+	public void clear() {
+		layouts.clear();
+	}
+
+	private static class Key {
+		private final String text;
+		private final Font font;
+		private final FontRenderContext frc;
+
+		public Key(String text, Font font, FontRenderContext frc) {
+			this.text = text;
+			this.font = font;
+			this.frc = frc;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(text, font, frc);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return text.equals(other.text) && font.equals(other.font) && frc.equals(other.frc);
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
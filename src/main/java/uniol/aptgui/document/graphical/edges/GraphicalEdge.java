@@ -29,13 +29,19 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Polygon;
 import java.awt.Rectangle;
+import java.awt.Shape;
 import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
+import uniol.aptgui.document.DetailLevel;
 import uniol.aptgui.document.RenderingOptions;
 import uniol.aptgui.document.graphical.GraphicalElement;
+import uniol.aptgui.document.graphical.GraphicalElementListener;
 import uniol.aptgui.document.graphical.nodes.GraphicalNode;
 
 /**
@@ -45,13 +51,51 @@ import uniol.aptgui.document.graphical.nodes.GraphicalNode;
  */
 public abstract class GraphicalEdge extends GraphicalElement {
 
-	private static final double SELECTION_DISTANCE = 10;
+	public static final double SELECTION_DISTANCE = 10;
+
+	private static final BasicStroke ARROWHEAD_STROKE = new BasicStroke(1f);
+
+	/**
+	 * Stroke whose outline contains all points within the selection
+	 * distance of a path.
+	 */
+	private static final BasicStroke PICK_STROKE = new BasicStroke((float) (2 * SELECTION_DISTANCE),
+			BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
 
 	protected GraphicalNode source;
 	protected GraphicalNode target;
 	protected List<Point> breakpoints;
 	protected String label;
 
+	/**
+	 * Cached path of this edge or null if it needs to be recomputed.
+	 */
+	private List<Point> cachedPath;
+
+	/**
+	 * Cached label position that belongs to the cached path.
+	 */
+	private Point cachedLabelPoint;
+
+	/**
+	 * Cached arrowhead that belongs to the cached path.
+	 */
+	private Polygon cachedArrowhead;
+
+	/**
+	 * Source and target center coordinates at the time the cached path was
+	 * computed. The cache is invalid as soon as they differ from the
+	 * current node positions.
+	 */
+	private int cachedSourceX, cachedSourceY, cachedTargetX, cachedTargetY;
+
+	/**
+	 * Geometry revisions of source and target at the time the cached path
+	 * was computed. They catch changes of the node shapes that move the
+	 * boundary intersections without moving the centers.
+	 */
+	private int cachedSourceGeometry, cachedTargetGeometry;
+
 	public GraphicalEdge(GraphicalNode source, GraphicalNode target) {
 		assert source != null;
 		assert target != null;
@@ -61,6 +105,19 @@ public abstract class GraphicalEdge extends GraphicalElement {
 		this.label = "";
 	}
 
+	@Override
+	protected GraphicalElement copy(Map<GraphicalElement, GraphicalElement> snapshots) {
+		GraphicalEdge copy = (GraphicalEdge) super.copy(snapshots);
+		copy.source = (GraphicalNode) source.createSnapshot(snapshots);
+		copy.target = (GraphicalNode) target.createSnapshot(snapshots);
+		copy.breakpoints = new ArrayList<>(breakpoints.size());
+		for (Point bp : breakpoints) {
+			copy.breakpoints.add(new Point(bp));
+		}
+		copy.cachedPath = null;
+		return copy;
+	}
+
 	@Override
 	public boolean canDraw() {
 		return true;
@@ -82,7 +139,10 @@ public abstract class GraphicalEdge extends GraphicalElement {
 	 *                the source node of this edge
 	 */
 	public void setSource(GraphicalNode source) {
+		GraphicalNode oldSource = this.source;
 		this.source = source;
+		fireNodesChanged(oldSource, target);
+		fireGeometryChanged();
 	}
 
 	/**
@@ -101,7 +161,26 @@ public abstract class GraphicalEdge extends GraphicalElement {
 	 *                the source node of this edge
 	 */
 	public void setTarget(GraphicalNode target) {
+		GraphicalNode oldTarget = this.target;
 		this.target = target;
+		fireNodesChanged(source, oldTarget);
+		fireGeometryChanged();
+	}
+
+	/**
+	 * Informs the listener that the source or target node of this edge
+	 * was replaced.
+	 *
+	 * @param oldSource
+	 *                source node before the change
+	 * @param oldTarget
+	 *                target node before the change
+	 */
+	private void fireNodesChanged(GraphicalNode oldSource, GraphicalNode oldTarget) {
+		GraphicalElementListener listener = getListener();
+		if (listener != null) {
+			listener.onEdgeNodesChanged(this, oldSource, oldTarget);
+		}
 	}
 
 	/**
@@ -120,15 +199,72 @@ public abstract class GraphicalEdge extends GraphicalElement {
 	 *                the label
 	 */
 	public void setLabel(String label) {
-		this.label = label;
+		if (!Objects.equals(this.label, label)) {
+			this.label = label;
+			fireAppearanceChanged();
+		}
 	}
 
 	@Override
-	protected void drawImpl(Graphics2D graphics, RenderingOptions renderingOptions) {
+	protected void fireGeometryChanged() {
+		// Every geometry change of the edge itself invalidates the cached
+		// path. Node movement is detected in isPathCacheValid.
+		cachedPath = null;
+		super.fireGeometryChanged();
+	}
+
+	@Override
+	protected void drawImpl(Graphics2D graphics, RenderingOptions renderingOptions, DetailLevel detailLevel) {
 		List<Point> path = getPath();
-		drawPathWithArrowhead(graphics, path);
-		drawLabel(graphics, path, label);
-		if (selected) {
+		drawPath(graphics, path);
+		if (detailLevel != DetailLevel.MINIMAL) {
+			drawArrowhead(graphics, cachedArrowhead);
+		}
+		drawDecorations(graphics, renderingOptions, detailLevel);
+	}
+
+	/**
+	 * Appends the shape of this edge to the given paths so that many edges
+	 * can be drawn at once.
+	 *
+	 * @param shafts
+	 *                path the line segments are appended to
+	 * @param arrowheads
+	 *                path the arrowhead outline is appended to or null if
+	 *                no arrowhead should be drawn
+	 * @see #drawArrowheads(Graphics2D, Shape)
+	 */
+	public void appendShape(Path2D shafts, Path2D arrowheads) {
+		List<Point> path = getPath();
+		Point first = path.get(0);
+		shafts.moveTo(first.x, first.y);
+		for (int i = 1; i < path.size(); i++) {
+			Point p = path.get(i);
+			shafts.lineTo(p.x, p.y);
+		}
+		if (arrowheads != null) {
+			arrowheads.append(cachedArrowhead, false);
+		}
+	}
+
+	/**
+	 * Draws the parts of this edge that are not included in
+	 * {@link #appendShape(Path2D, Path2D)}, i.e. the label and selection
+	 * markers, in the current color of the graphics object.
+	 *
+	 * @param graphics
+	 *                graphics object to draw to
+	 * @param renderingOptions
+	 *                settings that influence the drawing process
+	 * @param detailLevel
+	 *                amount of detail that should be drawn
+	 */
+	public void drawDecorations(Graphics2D graphics, RenderingOptions renderingOptions, DetailLevel detailLevel) {
+		List<Point> path = getPath();
+		if (detailLevel == DetailLevel.FULL) {
+			drawString(graphics, label, cachedLabelPoint.x, cachedLabelPoint.y);
+		}
+		if (isSelected()) {
 			drawSelectionMarkers(graphics, path);
 		}
 	}
@@ -138,25 +274,41 @@ public abstract class GraphicalEdge extends GraphicalElement {
 		return getSegmentIndexAt(point) != -1;
 	}
 
+	@Override
+	public Shape getPickArea() {
+		List<Point> path = getPath();
+		Path2D pathShape = new Path2D.Float();
+		pathShape.moveTo(path.get(0).x, path.get(0).y);
+		for (int i = 1; i < path.size(); i++) {
+			pathShape.lineTo(path.get(i).x, path.get(i).y);
+		}
+		return PICK_STROKE.createStrokedShape(pathShape);
+	}
+
 	@Override
 	public Rectangle getBounds() {
-		Rectangle bounds = new Rectangle(source.getCenter());
-		for (Point bp : breakpoints) {
-			bounds = bounds.union(new Rectangle(bp));
+		int minX = Math.min(source.getCenterX(), target.getCenterX());
+		int minY = Math.min(source.getCenterY(), target.getCenterY());
+		int maxX = Math.max(source.getCenterX(), target.getCenterX());
+		int maxY = Math.max(source.getCenterY(), target.getCenterY());
+		for (int i = 0; i < breakpoints.size(); i++) {
+			int x = getBreakpointX(i);
+			int y = getBreakpointY(i);
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
 		}
-		bounds = bounds.union(new Rectangle(target.getCenter()));
 		// Prevent width or height from being 0 as this messes with
 		// Rectangle#contains
-		int width = (int) Math.max(1, bounds.getWidth());
-		int height = (int) Math.max(1, bounds.getHeight());
-		bounds.setSize(width, height);
-		return bounds;
+		return new Rectangle(minX, minY, Math.max(1, maxX - minX), Math.max(1, maxY - minY));
 	}
 
 	/**
 	 * Returns the breakpoint with the given index. Attention: A reference
 	 * is returned, so any modifications will be mirrored by the
-	 * GraphicalEdge.
+	 * GraphicalEdge. Use {@link #translateBreakpoint(int, int, int)} to
+	 * move a breakpoint so that listeners are informed about the change.
 	 *
 	 * @param index
 	 *                breakpoint index
@@ -166,6 +318,28 @@ public abstract class GraphicalEdge extends GraphicalElement {
 		return breakpoints.get(index);
 	}
 
+	/**
+	 * Returns the x coordinate of the breakpoint with the given index.
+	 *
+	 * @param index
+	 *                breakpoint index
+	 * @return x coordinate of the breakpoint
+	 */
+	public int getBreakpointX(int index) {
+		return breakpoints.get(index).x;
+	}
+
+	/**
+	 * Returns the y coordinate of the breakpoint with the given index.
+	 *
+	 * @param index
+	 *                breakpoint index
+	 * @return y coordinate of the breakpoint
+	 */
+	public int getBreakpointY(int index) {
+		return breakpoints.get(index).y;
+	}
+
 	/**
 	 * Returns an unmodifiable view of the breakpoint list.
 	 *
@@ -180,6 +354,7 @@ public abstract class GraphicalEdge extends GraphicalElement {
 	 */
 	public void removeAllBreakpoints() {
 		breakpoints.clear();
+		fireGeometryChanged();
 	}
 
 	/**
@@ -219,6 +394,7 @@ public abstract class GraphicalEdge extends GraphicalElement {
 	 */
 	public int addBreakpoint(Point breakpoint) {
 		breakpoints.add(breakpoint);
+		fireGeometryChanged();
 		return breakpoints.size() - 1;
 	}
 
@@ -232,6 +408,7 @@ public abstract class GraphicalEdge extends GraphicalElement {
 	 */
 	public void addBreakpoint(int index, Point breakpoint) {
 		breakpoints.add(index, breakpoint);
+		fireGeometryChanged();
 	}
 
 	/**
@@ -249,6 +426,7 @@ public abstract class GraphicalEdge extends GraphicalElement {
 			// subtract 1.
 			int insertionIndex = pathIndex - 1;
 			breakpoints.add(insertionIndex, breakpoint);
+			fireGeometryChanged();
 			return insertionIndex;
 		}
 		return -1;
@@ -262,7 +440,9 @@ public abstract class GraphicalEdge extends GraphicalElement {
 	 * @return the breakpoint that was previously at the given index
 	 */
 	public Point removeBreakpoint(int index) {
-		return breakpoints.remove(index);
+		Point breakpoint = breakpoints.remove(index);
+		fireGeometryChanged();
+		return breakpoint;
 	}
 
 	/**
@@ -278,6 +458,25 @@ public abstract class GraphicalEdge extends GraphicalElement {
 		for (Point p : breakpoints) {
 			p.translate(dx, dy);
 		}
+		fireGeometryChanged();
+	}
+
+	/**
+	 * Translates the position of the breakpoint at the given index by the
+	 * given x and y difference.
+	 *
+	 * @param index
+	 *                index of the breakpoint to move
+	 * @param dx
+	 *                movement in x-direction
+	 * @param dy
+	 *                movement in y-direction
+	 */
+	public void translateBreakpoint(int index, int dx, int dy) {
+		Point breakpoint = breakpoints.get(index);
+		breakpoint.translate(dx, dy);
+		breakpoints.set(index, breakpoint);
+		fireGeometryChanged();
 	}
 
 	/**
@@ -291,23 +490,28 @@ public abstract class GraphicalEdge extends GraphicalElement {
 	public boolean isBreakpointNecessary(int breakpointIndex) {
 		assert 0 <= breakpointIndex && breakpointIndex < breakpoints.size();
 
-		Point curr = breakpoints.get(breakpointIndex);
-		Point prev, next;
+		int currX = getBreakpointX(breakpointIndex);
+		int currY = getBreakpointY(breakpointIndex);
+		int prevX, prevY, nextX, nextY;
 		if (breakpointIndex == 0) {
-			prev = source.getCenter();
+			prevX = source.getCenterX();
+			prevY = source.getCenterY();
 		} else {
-			prev = breakpoints.get(breakpointIndex - 1);
+			prevX = getBreakpointX(breakpointIndex - 1);
+			prevY = getBreakpointY(breakpointIndex - 1);
 		}
 		if (breakpointIndex == breakpoints.size() - 1) {
-			next = target.getCenter();
+			nextX = target.getCenterX();
+			nextY = target.getCenterY();
 		} else {
-			next = breakpoints.get(breakpointIndex + 1);
+			nextX = getBreakpointX(breakpointIndex + 1);
+			nextY = getBreakpointY(breakpointIndex + 1);
 		}
 
 		// Use law of cosines to get angle between the two line segments meeting at the given breakpoint.
-		double a = sqrt(pow(curr.x - next.x, 2) + pow(curr.y - next.y, 2));
-		double b = sqrt(pow(curr.x - prev.x, 2) + pow(curr.y - prev.y, 2));
-		double c = sqrt(pow(prev.x - next.x, 2) + pow(prev.y - next.y, 2));
+		double a = sqrt(pow(currX - nextX, 2) + pow(currY - nextY, 2));
+		double b = sqrt(pow(currX - prevX, 2) + pow(currY - prevY, 2));
+		double c = sqrt(pow(prevX - nextX, 2) + pow(prevY - nextY, 2));
 		double angle = acos((pow(a, 2) + pow(b, 2) - pow(c, 2)) / (2 * a * b));
 
 		return angle < (PI - 0.15);
@@ -326,8 +530,7 @@ public abstract class GraphicalEdge extends GraphicalElement {
 		Point start = path.get(0);
 		for (int i = 1; i < path.size(); i++) {
 			Point end = path.get(i);
-			Line2D line = new Line2D.Float(start.x, start.y, end.x, end.y);
-			if (line.ptSegDist(point.x, point.y) < SELECTION_DISTANCE) {
+			if (Line2D.ptSegDist(start.x, start.y, end.x, end.y, point.x, point.y) < SELECTION_DISTANCE) {
 				return i;
 			}
 			start = end;
@@ -337,12 +540,59 @@ public abstract class GraphicalEdge extends GraphicalElement {
 
 	/**
 	 * Returns a list of points that describe this edge's path when
-	 * interpolating linearly between them.
+	 * interpolating linearly between them. The path is cached until the
+	 * breakpoints change or one of the nodes moves, so the returned list
+	 * must not be modified.
 	 *
 	 * @return list of points that describe this edge's path
 	 */
 	protected List<Point> getPath() {
-		List<Point> path = new ArrayList<>();
+		if (!isPathCacheValid()) {
+			cachedPath = computePath();
+			cachedLabelPoint = getLabelPoint(
+				cachedPath.get(cachedPath.size() - 2),
+				cachedPath.get(cachedPath.size() - 1)
+			);
+			cachedArrowhead = createArrowhead(
+				cachedPath.get(cachedPath.size() - 2),
+				cachedPath.get(cachedPath.size() - 1)
+			);
+			cachedSourceX = source.getCenterX();
+			cachedSourceY = source.getCenterY();
+			cachedTargetX = target.getCenterX();
+			cachedTargetY = target.getCenterY();
+			cachedSourceGeometry = source.getGeometryRevision();
+			cachedTargetGeometry = target.getGeometryRevision();
+		}
+		return cachedPath;
+	}
+
+	/**
+	 * Returns true if the cached path still matches the current node
+	 * positions and shapes. Changes to the edge itself reset the cache
+	 * directly.
+	 *
+	 * @return true if the cached path can be used
+	 */
+	private boolean isPathCacheValid() {
+		if (cachedPath == null) {
+			return false;
+		}
+		return source.getGeometryRevision() == cachedSourceGeometry
+			&& target.getGeometryRevision() == cachedTargetGeometry
+			&& source.getCenterX() == cachedSourceX && source.getCenterY() == cachedSourceY
+			&& target.getCenterX() == cachedTargetX && target.getCenterY() == cachedTargetY;
+	}
+
+	/**
+	 * Computes the list of points that describe this edge's path. The
+	 * breakpoints are copied so that the cached path does not change
+	 * together with the breakpoints.
+	 *
+	 * @return list of points that describe this edge's path
+	 */
+	private List<Point> computePath() {
+		List<Point> path = new ArrayList<>(breakpoints.size() + 2);
 
 		// Find first and last breakpoints or valid substitutes for boundary intersection computations.
 		Point first, last;
@@ -356,28 +606,15 @@ public abstract class GraphicalEdge extends GraphicalElement {
 
 		// Collect path Points.
 		path.add(source.getBoundaryIntersection(first));
-		path.addAll(breakpoints);
+		for (Point bp : breakpoints) {
+			path.add(new Point(bp));
+		}
 		path.add(target.getBoundaryIntersection(last));
 
 		assert path.size() >= 2;
 		return path;
 	}
 
-	/**
-	 * Draws a label at a suitable position along the given path.
-	 *
-	 * @param graphics
-	 *                graphics object to paint with
-	 * @param path
-	 *                edge path
-	 * @param label
-	 *                the label string to draw
-	 */
-	private static void drawLabel(Graphics2D graphics, List<Point> path, String label) {
-		Point labelPoint = getLabelPoint(path.get(path.size() - 2), path.get(path.size() - 1));
-		graphics.drawString(label, labelPoint.x, labelPoint.y);
-	}
-
 	/**
 	 * Returns the position where the label should be drawn.
 	 *
@@ -463,6 +700,49 @@ public abstract class GraphicalEdge extends GraphicalElement {
 	 *                the arrowhead will be drawn
 	 */
 	public static void drawArrowhead(Graphics2D graphics, Point source, Point target) {
+		drawArrowhead(graphics, createArrowhead(source, target));
+	}
+
+	/**
+	 * Draws the given arrowhead polygon as a solid shape.
+	 *
+	 * @param graphics
+	 *                graphics context used for drawing
+	 * @param arrowhead
+	 *                arrowhead created by
+	 *                {@link #createArrowhead(Point, Point)}
+	 */
+	private static void drawArrowhead(Graphics2D graphics, Polygon arrowhead) {
+		drawArrowheads(graphics, arrowhead);
+	}
+
+	/**
+	 * Draws the given arrowhead outlines as solid shapes.
+	 *
+	 * @param graphics
+	 *                graphics context used for drawing
+	 * @param arrowheads
+	 *                one or more arrowhead outlines
+	 */
+	public static void drawArrowheads(Graphics2D graphics, Shape arrowheads) {
+		// make the arrowhead solid
+		graphics.setStroke(ARROWHEAD_STROKE);
+		graphics.draw(arrowheads);
+		graphics.fill(arrowheads);
+	}
+
+	/**
+	 * Creates an arrowhead polygon that ends in the given target point.
+	 *
+	 * @param source
+	 *                source of the linear connection at the end of which
+	 *                the arrowhead will be drawn
+	 * @param target
+	 *                target of the linear connection at the end of which
+	 *                the arrowhead will be drawn
+	 * @return the arrowhead polygon
+	 */
+	private static Polygon createArrowhead(Point source, Point target) {
 		int x = target.x;
 		int y = target.y;
 		int i1 = 12;
@@ -475,11 +755,7 @@ public abstract class GraphicalEdge extends GraphicalElement {
 		arrowhead.addPoint(x + xCor(i2, aDir), y + yCor(i2, aDir));
 		arrowhead.addPoint(x + xCor(i1, aDir - 0.5), y + yCor(i1, aDir - 0.5));
 		arrowhead.addPoint(x, y);
-
-		// make the arrowhead solid
-		graphics.setStroke(new BasicStroke(1f));
-		graphics.drawPolygon(arrowhead);
-		graphics.fillPolygon(arrowhead);
+		return arrowhead;
 	}
 
 	private static int yCor(int len, double dir) {
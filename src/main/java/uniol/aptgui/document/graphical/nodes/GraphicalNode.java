@@ -23,10 +23,13 @@ import static java.lang.Math.atan;
 import static java.lang.Math.cos;
 import static java.lang.Math.sin;
 
-import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.font.TextLayout;
+import java.util.Map;
+import java.util.Objects;
 
+import uniol.aptgui.document.DetailLevel;
 import uniol.aptgui.document.RenderingOptions;
 import uniol.aptgui.document.graphical.GraphicalElement;
 
@@ -36,14 +39,21 @@ import uniol.aptgui.document.graphical.GraphicalElement;
 public abstract class GraphicalNode extends GraphicalElement {
 
 	protected String id;
-	protected Point center;
+
+	/**
+	 * Center of this node or null if it has no position yet.
+	 */
+	private Point center;
 
 	public String getId() {
 		return id;
 	}
 
 	public void setId(String id) {
-		this.id = id;
+		if (!Objects.equals(this.id, id)) {
+			this.id = id;
+			fireAppearanceChanged();
+		}
 	}
 
 	public Point getCenter() {
@@ -52,6 +62,41 @@ public abstract class GraphicalNode extends GraphicalElement {
 
 	public void setCenter(Point center) {
 		this.center = center;
+		fireGeometryChanged();
+	}
+
+	/**
+	 * Returns the x coordinate of the center. The node must have a center.
+	 *
+	 * @return x coordinate of the center
+	 */
+	public int getCenterX() {
+		return center.x;
+	}
+
+	/**
+	 * Returns the y coordinate of the center. The node must have a center.
+	 *
+	 * @return y coordinate of the center
+	 */
+	public int getCenterY() {
+		return center.y;
+	}
+
+	@Override
+	protected GraphicalElement copy(Map<GraphicalElement, GraphicalElement> snapshots) {
+		GraphicalNode copy = (GraphicalNode) super.copy(snapshots);
+		copy.center = (center != null) ? new Point(center) : null;
+		return copy;
+	}
+
+	/**
+	 * Returns true if this node has a center.
+	 *
+	 * @return true if this node has a center
+	 */
+	protected boolean hasCenter() {
+		return center != null;
 	}
 
 	/**
@@ -65,31 +110,66 @@ public abstract class GraphicalNode extends GraphicalElement {
 	public void translate(int dx, int dy) {
 		center.x += dx;
 		center.y += dy;
+		fireGeometryChanged();
 	}
 
 	@Override
 	public boolean canDraw() {
-		return center != null;
+		return hasCenter();
 	}
 
 	@Override
 	public boolean coversPoint(Point point) {
-		return center != null;
+		return hasCenter();
 	}
 
 	@Override
-	protected void drawImpl(Graphics2D graphics, RenderingOptions renderingOptions) {
-		drawShape(graphics, renderingOptions);
-		if (id != null) {
-			drawId(graphics, renderingOptions);
+	protected void drawImpl(Graphics2D graphics, RenderingOptions renderingOptions, DetailLevel detailLevel) {
+		if (detailLevel == DetailLevel.MINIMAL) {
+			drawMark(graphics, renderingOptions);
+		} else {
+			drawShape(graphics, renderingOptions);
+			if (detailLevel == DetailLevel.FULL) {
+				drawContent(graphics, renderingOptions);
+				if (id != null) {
+					drawId(graphics, renderingOptions);
+				}
+			}
 		}
-		if (selected) {
+		if (isSelected()) {
 			drawSelectionMarkers(graphics, renderingOptions);
 		}
 	}
 
 	protected abstract void drawShape(Graphics2D graphics, RenderingOptions renderingOptions);
 
+	/**
+	 * Draws details inside of the node's shape such as tokens or labels.
+	 * They are omitted if the document is zoomed out too far.
+	 *
+	 * @param graphics
+	 *                graphics object
+	 * @param renderingOptions
+	 *                settings that influence the rendering
+	 */
+	protected void drawContent(Graphics2D graphics, RenderingOptions renderingOptions) {
+		// Empty by default
+	}
+
+	/**
+	 * Draws a simplified representation of the node that is used if the
+	 * document is zoomed out very far. By default the normal shape is
+	 * drawn.
+	 *
+	 * @param graphics
+	 *                graphics object
+	 * @param renderingOptions
+	 *                settings that influence the rendering
+	 */
+	protected void drawMark(Graphics2D graphics, RenderingOptions renderingOptions) {
+		drawShape(graphics, renderingOptions);
+	}
+
 	protected abstract void drawId(Graphics2D graphics, RenderingOptions renderingOptions);
 
 	protected abstract void drawSelectionMarkers(Graphics2D graphics, RenderingOptions renderingOptions);
@@ -162,18 +242,49 @@ public abstract class GraphicalNode extends GraphicalElement {
 	}
 
 	protected static void drawCircle(Graphics2D graphics, Point center, int radius) {
-		graphics.drawOval(center.x - radius, center.y - radius, 2 * radius, 2 * radius);
+		drawCircle(graphics, center.x, center.y, radius);
+	}
+
+	protected static void drawCircle(Graphics2D graphics, int x, int y, int radius) {
+		graphics.drawOval(x - radius, y - radius, 2 * radius, 2 * radius);
 	}
 
 	protected static void drawSquare(Graphics2D graphics, Point center, int radius) {
-		graphics.drawRect(center.x - radius, center.y - radius, 2 * radius, 2 * radius);
+		drawSquare(graphics, center.x, center.y, radius);
 	}
 
-	protected static void drawCenteredString(Graphics2D graphics, Point center, String string) {
-		FontMetrics metrics = graphics.getFontMetrics();
-		int xOffset = metrics.stringWidth(string) / 2;
-		int yOffset = metrics.getAscent() / 2;
-		graphics.drawString(string, center.x - xOffset, center.y + yOffset);
+	protected static void drawSquare(Graphics2D graphics, int x, int y, int radius) {
+		graphics.drawRect(x - radius, y - radius, 2 * radius, 2 * radius);
+	}
+
+	protected static void fillCircle(Graphics2D graphics, Point center, int radius) {
+		fillCircle(graphics, center.x, center.y, radius);
+	}
+
+	protected static void fillCircle(Graphics2D graphics, int x, int y, int radius) {
+		graphics.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
+	}
+
+	protected static void fillSquare(Graphics2D graphics, Point center, int radius) {
+		fillSquare(graphics, center.x, center.y, radius);
+	}
+
+	protected static void fillSquare(Graphics2D graphics, int x, int y, int radius) {
+		graphics.fillRect(x - radius, y - radius, 2 * radius, 2 * radius);
+	}
+
+	protected void drawCenteredString(Graphics2D graphics, Point center, String string) {
+		drawCenteredString(graphics, center.x, center.y, string);
+	}
+
+	protected void drawCenteredString(Graphics2D graphics, int x, int y, String string) {
+		if (string.isEmpty()) {
+			return;
+		}
+		TextLayout layout = getTextLayout(graphics, string);
+		int xOffset = (int) layout.getAdvance() / 2;
+		int yOffset = (int) layout.getAscent() / 2;
+		layout.draw(graphics, x - xOffset, y + yOffset);
 	}
 
 }
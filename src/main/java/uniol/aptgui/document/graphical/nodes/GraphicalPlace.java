@@ -22,6 +22,9 @@ package uniol.aptgui.document.graphical.nodes;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Point2D;
 
 import uniol.aptgui.document.RenderingOptions;
 
@@ -42,26 +45,47 @@ public class GraphicalPlace extends GraphicalNode {
 	}
 
 	public void setTokens(long tokens) {
-		this.tokens = tokens;
+		if (this.tokens != tokens) {
+			this.tokens = tokens;
+			fireAppearanceChanged();
+		}
 	}
 
 	@Override
 	public Point getBoundaryIntersection(Point point) {
-		return getCircleBoundaryIntersection(center, RADIUS, point);
+		return getCircleBoundaryIntersection(getCenter(), RADIUS, point);
 	}
 
 	@Override
 	public boolean coversPoint(Point point) {
-		return super.coversPoint(point) && center.distance(point.x, point.y) < RADIUS;
+		return super.coversPoint(point)
+				&& Point2D.distance(getCenterX(), getCenterY(), point.x, point.y) < RADIUS;
+	}
+
+	@Override
+	public Shape getPickArea() {
+		if (!hasCenter()) {
+			return new Rectangle();
+		}
+		return new Ellipse2D.Float(getCenterX() - RADIUS, getCenterY() - RADIUS, 2 * RADIUS, 2 * RADIUS);
 	}
 
 	@Override
 	protected void drawShape(Graphics2D graphics, RenderingOptions renderingOptions) {
-		drawCircle(graphics, center, RADIUS);
+		drawCircle(graphics, getCenterX(), getCenterY(), RADIUS);
+	}
+
+	@Override
+	protected void drawMark(Graphics2D graphics, RenderingOptions renderingOptions) {
+		fillCircle(graphics, getCenterX(), getCenterY(), RADIUS);
+	}
+
+	@Override
+	protected void drawContent(Graphics2D graphics, RenderingOptions renderingOptions) {
 		if (tokens <= SMALL_TOKEN_THRESHOLD) {
 			drawTokens(graphics);
 		} else {
-			drawCenteredString(graphics, center, String.valueOf(tokens));
+			drawCenteredString(graphics, getCenterX(), getCenterY(), String.valueOf(tokens));
 		}
 	}
 
@@ -72,34 +96,29 @@ public class GraphicalPlace extends GraphicalNode {
 	 *                graphics object
 	 */
 	private void drawTokens(Graphics2D graphics) {
+		int x = getCenterX();
+		int y = getCenterY();
 		int offset = RADIUS / 3;
-		Point topLeft = new Point(center.x - offset, center.y - offset);
-		Point topRight = new Point(center.x + offset, center.y - offset);
-		Point topCenter = new Point(center.x, center.y - offset);
-		Point btmLeft = new Point(center.x - offset, center.y + offset);
-		Point btmRight = new Point(center.x + offset, center.y + offset);
-		Point centerLeft = new Point(center.x - offset, center.y);
-		Point centerRight = new Point(center.x + offset, center.y);
 		if (tokens == 1) {
-			drawTokenDot(graphics, center);
+			drawTokenDot(graphics, x, y);
 		} else if (tokens == 2) {
-			drawTokenDot(graphics, centerLeft);
-			drawTokenDot(graphics, centerRight);
+			drawTokenDot(graphics, x - offset, y);
+			drawTokenDot(graphics, x + offset, y);
 		} else if (tokens == 3) {
-			drawTokenDot(graphics, btmLeft);
-			drawTokenDot(graphics, btmRight);
-			drawTokenDot(graphics, topCenter);
+			drawTokenDot(graphics, x - offset, y + offset);
+			drawTokenDot(graphics, x + offset, y + offset);
+			drawTokenDot(graphics, x, y - offset);
 		} else if (tokens == 4) {
-			drawTokenDot(graphics, btmLeft);
-			drawTokenDot(graphics, btmRight);
-			drawTokenDot(graphics, topLeft);
-			drawTokenDot(graphics, topRight);
+			drawTokenDot(graphics, x - offset, y + offset);
+			drawTokenDot(graphics, x + offset, y + offset);
+			drawTokenDot(graphics, x - offset, y - offset);
+			drawTokenDot(graphics, x + offset, y - offset);
 		} else if (tokens == 5) {
-			drawTokenDot(graphics, btmLeft);
-			drawTokenDot(graphics, btmRight);
-			drawTokenDot(graphics, topLeft);
-			drawTokenDot(graphics, topRight);
-			drawTokenDot(graphics, center);
+			drawTokenDot(graphics, x - offset, y + offset);
+			drawTokenDot(graphics, x + offset, y + offset);
+			drawTokenDot(graphics, x - offset, y - offset);
+			drawTokenDot(graphics, x + offset, y - offset);
+			drawTokenDot(graphics, x, y);
 		}
 	}
 
@@ -108,13 +127,15 @@ public class GraphicalPlace extends GraphicalNode {
 	 *
 	 * @param graphics
 	 *                graphics object
-	 * @param at
-	 *                position to draw the dot at
+	 * @param x
+	 *                x coordinate of the dot's center
+	 * @param y
+	 *                y coordinate of the dot's center
 	 */
-	private void drawTokenDot(Graphics2D graphics, Point at) {
+	private void drawTokenDot(Graphics2D graphics, int x, int y) {
 		graphics.fillOval(
-			at.x - TOKEN_DOT_RADIUS,
-			at.y - TOKEN_DOT_RADIUS,
+			x - TOKEN_DOT_RADIUS,
+			y - TOKEN_DOT_RADIUS,
 			2 * TOKEN_DOT_RADIUS,
 			2 * TOKEN_DOT_RADIUS
 		);
@@ -123,21 +144,22 @@ public class GraphicalPlace extends GraphicalNode {
 	@Override
 	protected void drawId(Graphics2D graphics, RenderingOptions renderingOptions) {
 		if (renderingOptions.isPlaceIdLabelVisible()) {
-			Point idLabelPosition = new Point(center.x + RADIUS + ID_OFFSET, center.y - RADIUS - ID_OFFSET);
-			drawCenteredString(graphics, idLabelPosition, id);
+			int x = getCenterX() + RADIUS + ID_OFFSET;
+			int y = getCenterY() - RADIUS - ID_OFFSET;
+			drawCenteredString(graphics, x, y, id);
 		}
 	}
 
 	@Override
 	protected void drawSelectionMarkers(Graphics2D graphics, RenderingOptions renderingOptions) {
-		drawSelectionMarkers(graphics, center, RADIUS + 2);
+		drawSelectionMarkers(graphics, getCenter(), RADIUS + 2);
 	}
 
 	@Override
 	public Rectangle getBounds() {
 		return new Rectangle(
-			center.x - RADIUS,
-			center.y - RADIUS - ID_OFFSET,
+			getCenterX() - RADIUS,
+			getCenterY() - RADIUS - ID_OFFSET,
 			2 * RADIUS + ID_OFFSET,
 			2 * RADIUS + ID_OFFSET
 		);
@@ -22,6 +22,9 @@ package uniol.aptgui.document.graphical.nodes;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -54,23 +57,36 @@ public class GraphicalState extends GraphicalNode {
 	 *                true, if this state should be an initial state
 	 */
 	public void setInitialState(boolean isInitialState) {
-		this.isInitialState = isInitialState;
+		if (this.isInitialState != isInitialState) {
+			this.isInitialState = isInitialState;
+			fireGeometryChanged();
+		}
 	}
 
 	@Override
 	public Point getBoundaryIntersection(Point point) {
-		return getCircleBoundaryIntersection(center, RADIUS, point);
+		return getCircleBoundaryIntersection(getCenter(), RADIUS, point);
 	}
 
 	@Override
 	public boolean coversPoint(Point point) {
-		return super.coversPoint(point) && center.distance(point.x, point.y) < RADIUS;
+		return super.coversPoint(point)
+				&& Point2D.distance(getCenterX(), getCenterY(), point.x, point.y) < RADIUS;
+	}
+
+	@Override
+	public Shape getPickArea() {
+		if (!hasCenter()) {
+			return new Rectangle();
+		}
+		return new Ellipse2D.Float(getCenterX() - RADIUS, getCenterY() - RADIUS, 2 * RADIUS, 2 * RADIUS);
 	}
 
 	@Override
 	protected void drawShape(Graphics2D graphics, RenderingOptions renderingOptions) {
-		drawCircle(graphics, center, RADIUS);
+		drawCircle(graphics, getCenterX(), getCenterY(), RADIUS);
 		if (isInitialState) {
+			Point center = getCenter();
 			Point outside = new Point(center.x - RADIUS - INITIAL_STATE_ARROW_LENGTH, center.y);
 			Point onBoundary = getBoundaryIntersection(outside);
 			List<Point> path = new ArrayList<>();
@@ -80,31 +96,38 @@ public class GraphicalState extends GraphicalNode {
 		}
 	}
 
+	@Override
+	protected void drawMark(Graphics2D graphics, RenderingOptions renderingOptions) {
+		fillCircle(graphics, getCenterX(), getCenterY(), RADIUS);
+	}
+
 	@Override
 	protected void drawId(Graphics2D graphics, RenderingOptions renderingOptions) {
 		if (renderingOptions.isStateIdLabelVisible()) {
-			drawCenteredString(graphics, center, id);
+			drawCenteredString(graphics, getCenterX(), getCenterY(), id);
 		}
 	}
 
 	@Override
 	protected void drawSelectionMarkers(Graphics2D graphics, RenderingOptions renderingOptions) {
-		drawSelectionMarkers(graphics, center, RADIUS + 2);
+		drawSelectionMarkers(graphics, getCenter(), RADIUS + 2);
 	}
 
 	@Override
 	public Rectangle getBounds() {
+		int x = getCenterX();
+		int y = getCenterY();
 		if (isInitialState) {
 			return new Rectangle(
-				center.x - RADIUS - INITIAL_STATE_ARROW_LENGTH,
-				center.y - RADIUS,
+				x - RADIUS - INITIAL_STATE_ARROW_LENGTH,
+				y - RADIUS,
 				2 * RADIUS + INITIAL_STATE_ARROW_LENGTH,
 				2 * RADIUS
 			);
 		} else {
 			return new Rectangle(
-				center.x - RADIUS,
-				center.y - RADIUS,
+				x - RADIUS,
+				y - RADIUS,
 				2 * RADIUS,
 				2 * RADIUS
 			);
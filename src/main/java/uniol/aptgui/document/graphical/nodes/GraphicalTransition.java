@@ -22,6 +22,8 @@ package uniol.aptgui.document.graphical.nodes;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.Shape;
+import java.util.Objects;
 
 import uniol.aptgui.document.RenderingOptions;
 import uniol.aptgui.document.graphical.traits.HasLabel;
@@ -38,12 +40,15 @@ public class GraphicalTransition extends GraphicalNode implements HasLabel {
 	}
 
 	public void setLabel(String label) {
-		this.label = label;
+		if (!Objects.equals(this.label, label)) {
+			this.label = label;
+			fireAppearanceChanged();
+		}
 	}
 
 	@Override
 	public Point getBoundaryIntersection(Point point) {
-		return getSquareBoundaryIntersection(center, RADIUS, point);
+		return getSquareBoundaryIntersection(getCenter(), RADIUS, point);
 	}
 
 	@Override
@@ -51,39 +56,57 @@ public class GraphicalTransition extends GraphicalNode implements HasLabel {
 		if (!super.coversPoint(point)) {
 			return false;
 		}
-		int minX = center.x - RADIUS;
-		int maxX = center.x + RADIUS;
-		int minY = center.y - RADIUS;
-		int maxY = center.y + RADIUS;
+		int minX = getCenterX() - RADIUS;
+		int maxX = getCenterX() + RADIUS;
+		int minY = getCenterY() - RADIUS;
+		int maxY = getCenterY() + RADIUS;
 		return minX <= point.x && point.x <= maxX && minY <= point.y && point.y <= maxY;
 	}
 
+	@Override
+	public Shape getPickArea() {
+		if (!hasCenter()) {
+			return new Rectangle();
+		}
+		return new Rectangle(getCenterX() - RADIUS, getCenterY() - RADIUS, 2 * RADIUS, 2 * RADIUS);
+	}
+
 	@Override
 	protected void drawShape(Graphics2D graphics, RenderingOptions renderingOptions) {
-		drawSquare(graphics, center, 20);
+		drawSquare(graphics, getCenterX(), getCenterY(), RADIUS);
+	}
+
+	@Override
+	protected void drawMark(Graphics2D graphics, RenderingOptions renderingOptions) {
+		fillSquare(graphics, getCenterX(), getCenterY(), RADIUS);
+	}
+
+	@Override
+	protected void drawContent(Graphics2D graphics, RenderingOptions renderingOptions) {
 		if (label != null) {
-			drawCenteredString(graphics, center, label);
+			drawCenteredString(graphics, getCenterX(), getCenterY(), label);
 		}
 	}
 
 	@Override
 	protected void drawId(Graphics2D graphics, RenderingOptions renderingOptions) {
 		if (renderingOptions.isTransitionIdLabelVisible()) {
-			Point idLabelPosition = new Point(center.x + RADIUS + ID_OFFSET, center.y - RADIUS - ID_OFFSET);
-			drawCenteredString(graphics, idLabelPosition, id);
+			int x = getCenterX() + RADIUS + ID_OFFSET;
+			int y = getCenterY() - RADIUS - ID_OFFSET;
+			drawCenteredString(graphics, x, y, id);
 		}
 	}
 
 	@Override
 	protected void drawSelectionMarkers(Graphics2D graphics, RenderingOptions renderingOptions) {
-		drawSelectionMarkers(graphics, center, RADIUS + 2);
+		drawSelectionMarkers(graphics, getCenter(), RADIUS + 2);
 	}
 
 	@Override
 	public Rectangle getBounds() {
 		return new Rectangle(
-			center.x - RADIUS,
-			center.y - RADIUS - ID_OFFSET,
+			getCenterX() - RADIUS,
+			getCenterY() - RADIUS - ID_OFFSET,
 			2 * RADIUS + ID_OFFSET,
 			2 * RADIUS + ID_OFFSET
 		);
@@ -33,6 +33,8 @@ import uniol.aptgui.document.graphical.nodes.GraphicalNode;
  */
 public class BreakpointHandle extends GraphicalNode {
 
+	private static final int RADIUS = 5;
+
 	/**
 	 * Creates a new breakpoint handle.
 	 */
@@ -53,12 +55,13 @@ public class BreakpointHandle extends GraphicalNode {
 
 	@Override
 	public Rectangle getBounds() {
-		throw new UnsupportedOperationException();
+		Point center = getCenter();
+		return new Rectangle(center.x - RADIUS, center.y - RADIUS, 2 * RADIUS + 1, 2 * RADIUS + 1);
 	}
 
 	@Override
 	protected void drawShape(Graphics2D graphics, RenderingOptions renderingOptions) {
-		drawSquare(graphics, center, 5);
+		drawSquare(graphics, getCenter(), RADIUS);
 	}
 
 	@Override
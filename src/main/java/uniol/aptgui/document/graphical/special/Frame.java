@@ -23,7 +23,9 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.Map;
 
+import uniol.aptgui.document.DetailLevel;
 import uniol.aptgui.document.RenderingOptions;
 import uniol.aptgui.document.graphical.GraphicalElement;
 
@@ -50,16 +52,27 @@ public class Frame extends GraphicalElement {
 	 */
 	public void setRectangle(Rectangle rect) {
 		this.rect = rect;
+		fireGeometryChanged();
 	}
 
 	@Override
-	protected void drawImpl(Graphics2D graphics, RenderingOptions renderingOptions) {
+	protected GraphicalElement copy(Map<GraphicalElement, GraphicalElement> snapshots) {
+		Frame copy = (Frame) super.copy(snapshots);
+		if (rect != null) {
+			copy.rect = new Rectangle(rect);
+		}
+		return copy;
+	}
+
+	@Override
+	protected void drawImpl(Graphics2D graphics, RenderingOptions renderingOptions, DetailLevel detailLevel) {
 		graphics.drawRect((int) rect.getX(), (int) rect.getY(), (int) rect.getWidth(), (int) rect.getHeight());
 	}
 
 	@Override
 	public Rectangle getBounds() {
-		throw new UnsupportedOperationException();
+		// drawRect covers one more pixel in each dimension
+		return new Rectangle(rect.x, rect.y, rect.width + 1, rect.height + 1);
 	}
 
 	@Override
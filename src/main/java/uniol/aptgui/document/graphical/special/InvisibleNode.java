@@ -40,7 +40,7 @@ public class InvisibleNode extends GraphicalNode {
 
 	@Override
 	public Point getBoundaryIntersection(Point point) {
-		return center;
+		return getCenter();
 	}
 
 	@Override
@@ -65,7 +65,8 @@ public class InvisibleNode extends GraphicalNode {
 
 	@Override
 	public Rectangle getBounds() {
-		throw new UnsupportedOperationException();
+		Point center = getCenter();
+		return new Rectangle(center.x, center.y, 1, 1);
 	}
 
 }
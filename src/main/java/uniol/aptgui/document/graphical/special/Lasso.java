@@ -0,0 +1,180 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document.graphical.special;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.util.Map;
+
+import uniol.aptgui.document.DetailLevel;
+import uniol.aptgui.document.RenderingOptions;
+import uniol.aptgui.document.graphical.GraphicalElement;
+
+/**
+ * Graphical element that is a closed freeform polygon.
+ */
+public class Lasso extends GraphicalElement {
+
+	/**
+	 * Maximum number of points. When a long path exceeds it, every second
+	 * point is dropped and the minimum point distance is doubled, so that
+	 * tests against the polygon stay cheap however long the path gets.
+	 */
+	public static final int MAX_POINTS = 512;
+
+	private Polygon polygon;
+
+	/**
+	 * Minimum distance between a new point and the previous one.
+	 */
+	private double minDistance;
+
+	/**
+	 * Creates a new lasso.
+	 */
+	public Lasso() {
+		this.polygon = new Polygon();
+		setColor(Color.BLACK);
+		setVisible(false);
+	}
+
+	/**
+	 * Removes all points and starts a new polygon at the given point.
+	 *
+	 * @param start
+	 *                first point of the polygon
+	 * @param minDistance
+	 *                points closer than this to the previous point are
+	 *                ignored
+	 */
+	public void reset(Point start, double minDistance) {
+		this.minDistance = minDistance;
+		polygon.reset();
+		polygon.addPoint(start.x, start.y);
+		fireGeometryChanged();
+	}
+
+	/**
+	 * Extends the polygon by the given point. Points that are equal to or
+	 * closer than the minimum distance to the previous one are ignored.
+	 *
+	 * @param point
+	 *                new point of the polygon
+	 * @return true if the point was added
+	 */
+	public boolean addPoint(Point point) {
+		int last = polygon.npoints - 1;
+		if (last >= 0) {
+			long dx = point.x - polygon.xpoints[last];
+			long dy = point.y - polygon.ypoints[last];
+			if ((dx == 0 && dy == 0) || dx * dx + dy * dy < minDistance * minDistance) {
+				return false;
+			}
+		}
+		if (polygon.npoints >= MAX_POINTS) {
+			thin();
+		}
+		polygon.addPoint(point.x, point.y);
+		fireGeometryChanged();
+		return true;
+	}
+
+	/**
+	 * Drops every second point and doubles the minimum point distance.
+	 */
+	private void thin() {
+		int n = 0;
+		for (int i = 0; i < polygon.npoints; i += 2) {
+			polygon.xpoints[n] = polygon.xpoints[i];
+			polygon.ypoints[n] = polygon.ypoints[i];
+			n++;
+		}
+		polygon.npoints = n;
+		polygon.invalidate();
+		minDistance = Math.max(1, 2 * minDistance);
+	}
+
+	/**
+	 * Returns the number of points of this lasso.
+	 *
+	 * @return number of points
+	 */
+	public int getPointCount() {
+		return polygon.npoints;
+	}
+
+	/**
+	 * Returns the area enclosed by this lasso. This is a view of the
+	 * lasso and changes when points are added, so no copy is made per
+	 * query.
+	 *
+	 * @return the enclosed area
+	 */
+	public Shape getArea() {
+		return polygon;
+	}
+
+	/**
+	 * Returns a copy of the polygon of this lasso.
+	 *
+	 * @return the polygon
+	 */
+	public Polygon getPolygon() {
+		return new Polygon(polygon.xpoints, polygon.ypoints, polygon.npoints);
+	}
+
+	@Override
+	protected GraphicalElement copy(Map<GraphicalElement, GraphicalElement> snapshots) {
+		Lasso copy = (Lasso) super.copy(snapshots);
+		copy.polygon = getPolygon();
+		return copy;
+	}
+
+	@Override
+	protected void drawImpl(Graphics2D graphics, RenderingOptions renderingOptions, DetailLevel detailLevel) {
+		graphics.drawPolygon(polygon);
+	}
+
+	@Override
+	public Rectangle getBounds() {
+		// drawPolygon covers one more pixel in each dimension
+		Rectangle bounds = polygon.getBounds();
+		bounds.width++;
+		bounds.height++;
+		return bounds;
+	}
+
+	@Override
+	public boolean coversPoint(Point point) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean canDraw() {
+		return polygon.npoints > 0;
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,341 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.editor;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import uniol.aptgui.document.DetailLevel;
+import uniol.aptgui.document.Document;
+import uniol.aptgui.document.EdgeBatch;
+import uniol.aptgui.document.RenderingOptions;
+import uniol.aptgui.document.Viewport;
+import uniol.aptgui.document.graphical.GraphicalElement;
+import uniol.aptgui.document.graphical.TextLayoutCache;
+import uniol.aptgui.document.graphical.edges.GraphicalEdge;
+
+/**
+ * Rasterizes the static layer of a document on a background thread. The Event
+ * Dispatch Thread takes a snapshot of the visible static elements and hands
+ * it to a worker thread that renders it into the back buffer. Once a frame is
+ * complete the buffers are swapped and the view is asked to repaint. Painting
+ * only draws the latest completed frame, transformed to the current viewport,
+ * so the user interface stays responsive while a frame is being produced.
+ */
+public class BackgroundRenderer {
+
+	/**
+	 * Worker thread that renders frames. It terminates when idle.
+	 */
+	private static final Executor EXECUTOR = createExecutor();
+
+	/**
+	 * Callback that gets run on the Event Dispatch Thread after a frame
+	 * was completed.
+	 */
+	private final Runnable frameCompletedCallback;
+
+	/**
+	 * Task that renders all pending scenes.
+	 */
+	private final Runnable renderTask = new Runnable() {
+		@Override
+		public void run() {
+			renderPendingScenes();
+		}
+	};
+
+	/**
+	 * Latest completed frame. Guarded by this.
+	 */
+	private Frame front;
+
+	/**
+	 * Image that the next frame will be rendered to. Only accessed by the
+	 * worker thread and while swapping buffers.
+	 */
+	private BufferedImage back;
+
+	/**
+	 * Scene that should be rendered next. Guarded by this.
+	 */
+	private Scene pending;
+
+	/**
+	 * True while a render task is scheduled or running. Guarded by this.
+	 */
+	private boolean rendering;
+
+	/**
+	 * Scene that was requested last. Only accessed by the Event Dispatch
+	 * Thread.
+	 */
+	private Scene requested;
+
+	/**
+	 * Grid renderer used by the worker thread.
+	 */
+	private final GridRenderer gridRenderer = new GridRenderer();
+
+	/**
+	 * Edge batch used by the worker thread.
+	 */
+	private final EdgeBatch edgeBatch = new EdgeBatch();
+
+	/**
+	 * Text layout cache used by the worker thread.
+	 */
+	private final TextLayoutCache textLayoutCache = new TextLayoutCache();
+
+	/**
+	 * Creates a new renderer.
+	 *
+	 * @param frameCompletedCallback
+	 *                callback that gets run on the Event Dispatch Thread
+	 *                when a new frame is available
+	 */
+	public BackgroundRenderer(Runnable frameCompletedCallback) {
+		this.frameCompletedCallback = frameCompletedCallback;
+	}
+
+	/**
+	 * Requests a new frame if the document changed since the last request.
+	 * Must be called on the Event Dispatch Thread.
+	 *
+	 * @param graphics
+	 *                graphics object the frame is going to be drawn to
+	 * @param document
+	 *                document that is displayed
+	 * @param renderingOptions
+	 *                current rendering options
+	 * @param gridSpacing
+	 *                current grid spacing, 0 if no grid is shown
+	 */
+	public void update(Graphics2D graphics, Document<?> document, RenderingOptions renderingOptions,
+			int gridSpacing) {
+		Viewport viewport = document.getViewport();
+		double deviceScale = StaticLayer.getDeviceScale(graphics);
+		if (requested != null && requested.matches(document, gridSpacing, deviceScale)) {
+			return;
+		}
+
+		Scene scene = new Scene();
+		scene.viewport = new Viewport(viewport);
+		scene.revision = document.getRevision();
+		scene.gridSpacing = gridSpacing;
+		scene.deviceScale = deviceScale;
+		scene.graphicsConfiguration = graphics.getDeviceConfiguration();
+		scene.renderingOptions = new RenderingOptions(renderingOptions);
+		scene.detailLevel = renderingOptions.getDetailLevel(viewport.getScale());
+		scene.elements = document.createStaticLayerSnapshot();
+		requested = scene;
+
+		synchronized (this) {
+			pending = scene;
+			if (rendering) {
+				return;
+			}
+			rendering = true;
+		}
+		EXECUTOR.execute(renderTask);
+	}
+
+	/**
+	 * Draws the latest completed frame. If it was rendered for a different
+	 * viewport, it gets transformed so that it matches the current one.
+	 *
+	 * @param graphics
+	 *                graphics object in view coordinates
+	 * @param viewport
+	 *                current viewport
+	 */
+	public synchronized void draw(Graphics2D graphics, Viewport viewport) {
+		if (front == null) {
+			return;
+		}
+		AffineTransform original = graphics.getTransform();
+		if (!viewport.equals(front.scene.viewport)) {
+			try {
+				graphics.transform(viewport.getAffineTransform());
+				graphics.transform(front.scene.viewport.getAffineTransform().createInverse());
+			} catch (NoninvertibleTransformException e) {
+				throw new AssertionError(e);
+			}
+		}
+		graphics.scale(1 / front.scene.deviceScale, 1 / front.scene.deviceScale);
+		graphics.drawImage(front.image, 0, 0, null);
+		graphics.setTransform(original);
+	}
+
+	/**
+	 * Discards the displayed frame and forces a new one on the next
+	 * update.
+	 */
+	public synchronized void invalidate() {
+		front = null;
+		requested = null;
+	}
+
+	/**
+	 * Renders scenes until there is no pending scene left. Runs on the
+	 * worker thread.
+	 */
+	private void renderPendingScenes() {
+		try {
+			while (true) {
+				Scene scene;
+				synchronized (this) {
+					scene = pending;
+					pending = null;
+					if (scene == null) {
+						rendering = false;
+						return;
+					}
+				}
+				BufferedImage image = render(scene);
+				synchronized (this) {
+					back = (front != null) ? front.image : null;
+					front = new Frame(scene, image);
+				}
+				SwingUtilities.invokeLater(frameCompletedCallback);
+			}
+		} catch (RuntimeException e) {
+			synchronized (this) {
+				rendering = false;
+				pending = null;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Renders the given scene into the back buffer and returns it.
+	 */
+	private BufferedImage render(Scene scene) {
+		Viewport viewport = scene.viewport;
+		int width = Math.max(1, (int) Math.ceil(viewport.getWidth() * scene.deviceScale));
+		int height = Math.max(1, (int) Math.ceil(viewport.getHeight() * scene.deviceScale));
+		BufferedImage image = back;
+		if (image == null || image.getWidth() != width || image.getHeight() != height) {
+			image = createImage(scene.graphicsConfiguration, width, height);
+		}
+
+		Graphics2D graphics = image.createGraphics();
+		graphics.setComposite(AlphaComposite.Clear);
+		graphics.fillRect(0, 0, width, height);
+		graphics.setComposite(AlphaComposite.SrcOver);
+		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		graphics.scale(scene.deviceScale, scene.deviceScale);
+		if (scene.gridSpacing > 0) {
+			gridRenderer.draw(graphics, viewport, scene.gridSpacing);
+		}
+		graphics.transform(viewport.getAffineTransform());
+		List<GraphicalElement> nodes = new ArrayList<>();
+		textLayoutCache.ensureCapacity(scene.elements.size());
+		for (GraphicalElement elem : scene.elements) {
+			elem.setTextLayoutCache(textLayoutCache);
+			if (elem instanceof GraphicalEdge) {
+				edgeBatch.add((GraphicalEdge) elem, false, scene.detailLevel);
+			} else {
+				nodes.add(elem);
+			}
+		}
+		edgeBatch.draw(graphics, scene.renderingOptions, scene.detailLevel);
+		Collections.sort(nodes, GraphicalElement.STYLE_ORDER);
+		for (GraphicalElement elem : nodes) {
+			elem.drawUnhighlighted(graphics, scene.renderingOptions, scene.detailLevel);
+		}
+		graphics.dispose();
+		return image;
+	}
+
+	private static BufferedImage createImage(GraphicsConfiguration gc, int width, int height) {
+		if (gc != null) {
+			return gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+		}
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	private static Executor createExecutor() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(0, 1, 10, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "Document Renderer");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		return executor;
+	}
+
+	/**
+	 * Immutable description of what should be rendered.
+	 */
+	private static class Scene {
+		private Viewport viewport;
+		private long revision;
+		private int gridSpacing;
+		private double deviceScale;
+		private GraphicsConfiguration graphicsConfiguration;
+		private RenderingOptions renderingOptions;
+		private DetailLevel detailLevel;
+		private List<GraphicalElement> elements;
+
+		private boolean matches(Document<?> document, int gridSpacing, double deviceScale) {
+			return revision == document.getRevision()
+				&& this.gridSpacing == gridSpacing
+				&& this.deviceScale == deviceScale
+				&& viewport.equals(document.getViewport());
+		}
+	}
+
+	/**
+	 * Completed frame.
+	 */
+	private static class Frame {
+		private final Scene scene;
+		private final BufferedImage image;
+
+		private Frame(Scene scene, BufferedImage image) {
+			this.scene = scene;
+			this.image = image;
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -19,12 +19,10 @@
 
 package uniol.aptgui.editor;
 
-import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
-import java.awt.geom.AffineTransform;
 
 import com.google.common.eventbus.Subscribe;
 import com.google.inject.Inject;
@@ -35,6 +33,7 @@ import uniol.aptgui.commands.History;
 import uniol.aptgui.document.Document;
 import uniol.aptgui.document.DocumentListener;
 import uniol.aptgui.document.EditingOptions;
+import uniol.aptgui.document.PaintProfiler;
 import uniol.aptgui.document.PnDocument;
 import uniol.aptgui.document.RenderingOptions;
 import uniol.aptgui.document.TsDocument;
@@ -63,6 +62,16 @@ import uniol.aptgui.mainwindow.WindowId;
 public class EditorPresenterImpl extends AbstractPresenter<EditorPresenter, EditorView>
 		implements EditorPresenter, DocumentListener {
 
+	/**
+	 * Profiler section for drawing the grid.
+	 */
+	private static final String GRID_SECTION = "Grid";
+
+	/**
+	 * Profiler section for copying the cached static layer to the screen.
+	 */
+	private static final String LAYER_COPY_SECTION = "Layer Copy";
+
 	private final Application application;
 
 	private final FeatureCollection features;
@@ -71,12 +80,41 @@ public class EditorPresenterImpl extends AbstractPresenter<EditorPresenter, Edit
 	private WindowId windowId;
 	private Document<?> document;
 
+	/**
+	 * Cached rendering of the parts of the document that do not change
+	 * during interactive editing.
+	 */
+	private final StaticLayer staticLayer = new StaticLayer();
+
+	/**
+	 * Tile based renderer for the grid.
+	 */
+	private final GridRenderer gridRenderer = new GridRenderer();
+
+	/**
+	 * Renderer that produces the static layer on a background thread if
+	 * background rendering is enabled.
+	 */
+	private final BackgroundRenderer backgroundRenderer;
+
+	/**
+	 * Limits the rate of repaints caused by document notifications.
+	 */
+	private final RepaintScheduler repaintScheduler;
+
 	@Inject
 	public EditorPresenterImpl(EditorView view, Application application) {
 		super(view);
 		this.application = application;
 		this.features = new FeatureCollection();
 		this.tools = new SingleFeatureCollection();
+		this.repaintScheduler = new RepaintScheduler(view, application.getRenderingOptions());
+		this.backgroundRenderer = new BackgroundRenderer(new Runnable() {
+			@Override
+			public void run() {
+				EditorPresenterImpl.this.view.repaint();
+			}
+		});
 
 		view.addMouseEventListener(features);
 		view.addMouseEventListener(tools);
@@ -137,6 +175,7 @@ public class EditorPresenterImpl extends AbstractPresenter<EditorPresenter, Edit
 
 		this.document = document;
 		this.document.addListener(this);
+		document.setPickingBufferEnabled(application.getRenderingOptions().isPickingBufferEnabled());
 
 		features.onDeactivated();
 		features.put(FeatureId.HOVER, new HoverFeature(document));
@@ -145,7 +184,7 @@ public class EditorPresenterImpl extends AbstractPresenter<EditorPresenter, Edit
 		features.onActivated();
 		features.setListening(true);
 
-		History hist = application.getHistory();
+		History hist = application.getHistory(document);
 		EditingOptions eo = application.getEditingOptions();
 		tools.clear();
 		if (document instanceof PnDocument) {
@@ -172,12 +211,65 @@ public class EditorPresenterImpl extends AbstractPresenter<EditorPresenter, Edit
 		if (document.isVisible()) {
 			EditingOptions eo = application.getEditingOptions();
 			RenderingOptions ro = application.getRenderingOptions();
+			int gridSpacing = ro.isGridVisible() ? eo.getGridSpacing() : 0;
+			PaintProfiler profiler = beginProfiling(ro);
+			if (ro.isBackgroundRenderingEnabled()) {
+				staticLayer.invalidate();
+				backgroundRenderer.update(graphics, document, ro, gridSpacing);
+				backgroundRenderer.draw(graphics, document.getViewport());
+			} else {
+				backgroundRenderer.invalidate();
+				if (!staticLayer.isValid(graphics, document, gridSpacing)) {
+					Graphics2D layerGraphics = staticLayer.render(graphics, document, gridSpacing);
+					if (layerGraphics != null) {
+						drawStaticLayer(layerGraphics, ro, gridSpacing);
+						layerGraphics.dispose();
+					}
+				}
+				long start = System.nanoTime();
+				staticLayer.draw(graphics);
+				if (profiler != null) {
+					profiler.addTime(LAYER_COPY_SECTION, start);
+				}
+			}
 			graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-			if (ro.isGridVisible()) {
-				drawGrid(graphics, eo.getGridSpacing());
+			document.drawOverlayLayer(graphics, ro);
+			if (profiler != null) {
+				profiler.endFrame();
+				PaintStatisticsHud.draw(graphics, profiler);
+			}
+		}
+	}
+
+	/**
+	 * Starts recording a new frame if paint statistics are enabled.
+	 *
+	 * @return the document's profiler or null if profiling is disabled
+	 */
+	private PaintProfiler beginProfiling(RenderingOptions ro) {
+		if (!ro.isPaintStatisticsVisible()) {
+			return null;
+		}
+		PaintProfiler profiler = document.getPaintProfiler();
+		if (profiler == null) {
+			profiler = new PaintProfiler();
+			document.setPaintProfiler(profiler);
+		}
+		profiler.beginFrame();
+		return profiler;
+	}
+
+	private void drawStaticLayer(Graphics2D graphics, RenderingOptions ro, int gridSpacing) {
+		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		if (gridSpacing > 0) {
+			long start = System.nanoTime();
+			gridRenderer.draw(graphics, document.getViewport(), gridSpacing);
+			PaintProfiler profiler = document.getPaintProfiler();
+			if (profiler != null) {
+				profiler.addTime(GRID_SECTION, start);
 			}
-			document.draw(graphics, ro);
 		}
+		document.drawStaticLayer(graphics, ro);
 	}
 
 	@SuppressWarnings("unused")
@@ -188,41 +280,20 @@ public class EditorPresenterImpl extends AbstractPresenter<EditorPresenter, Edit
 		graphics.drawRect(tl.x, tl.y, (int)(bounds.width * scale), (int)(bounds.height * scale));
 	}
 
-	private void drawGrid(Graphics2D graphics, int gridSpacing) {
-		// Compute area where grid lines need to be drawn
-		Point viewportTopLeft = document.getViewport().getTopLeft();
-		Point topLeft = document.getViewport().transformInverse(viewportTopLeft);
-		topLeft.x = topLeft.x - gridSpacing - topLeft.x % gridSpacing;
-		topLeft.y = topLeft.y - gridSpacing - topLeft.y % gridSpacing;
-
-		Point viewportBottomRight = document.getViewport().getBottomRight();
-		Point bottomRight = document.getViewport().transformInverse(viewportBottomRight);
-		bottomRight.x = bottomRight.x + gridSpacing - bottomRight.x % gridSpacing;
-		bottomRight.y = bottomRight.y + gridSpacing - bottomRight.y % gridSpacing;
-
-		// Set graphics transform
-		AffineTransform original = graphics.getTransform();
-		graphics.transform(document.getViewport().getAffineTransform());
-		// Set grid color
-		graphics.setColor(Color.GRAY);
-
-		// Draw vertical grid lines
-		for (int x = topLeft.x; x < bottomRight.x; x += gridSpacing) {
-			graphics.drawLine(x, topLeft.y, x, bottomRight.y);
-		}
-		// Draw horizontal grid lines
-		for (int y = topLeft.y; y < bottomRight.y; y += gridSpacing) {
-			graphics.drawLine(topLeft.x, y, bottomRight.x, y);
-		}
-
-		// Reset graphics transform
-		graphics.setTransform(original);
-	}
 
 	@Override
-	public void onDocumentDirty(Document<?> source) {
-		if (document.isVisible()) {
-			getView().repaint();
+	public void onDocumentDirty(Document<?> source, Rectangle dirtyArea) {
+		if (!document.isVisible()) {
+			return;
+		}
+		if (dirtyArea == null) {
+			repaintScheduler.repaint();
+		} else if (!dirtyArea.isEmpty()) {
+			if (application.getRenderingOptions().isPaintStatisticsVisible()) {
+				// Keep the displayed statistics up to date
+				dirtyArea.add(PaintStatisticsHud.BOUNDS);
+			}
+			repaintScheduler.repaint(dirtyArea);
 		}
 	}
 
@@ -234,7 +305,7 @@ public class EditorPresenterImpl extends AbstractPresenter<EditorPresenter, Edit
 	@Override
 	public void onDocumentChanged(Document<?> source) {
 		// No other action necessary except a repaint.
-		onDocumentDirty(source);
+		onDocumentDirty(source, null);
 	}
 
 }
@@ -20,6 +20,7 @@
 package uniol.aptgui.editor;
 
 import java.awt.Cursor;
+import java.awt.Rectangle;
 import java.awt.event.MouseAdapter;
 
 import uniol.aptgui.View;
@@ -36,6 +37,14 @@ public interface EditorView extends View<EditorPresenter> {
 
 	public void repaint();
 
+	/**
+	 * Schedules a repaint of the given area of the canvas.
+	 *
+	 * @param area
+	 *                area in view coordinates
+	 */
+	public void repaint(Rectangle area);
+
 	public void showPopupMenu(int x, int y);
 
 	/**
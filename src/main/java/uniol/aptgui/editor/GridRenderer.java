@@ -0,0 +1,202 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.editor;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.TexturePaint;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import uniol.aptgui.document.Viewport;
+
+/**
+ * Draws the editor grid by filling the viewport with a cached tile that
+ * contains one grid cell. This keeps the cost of the grid independent of the
+ * number of visible grid lines. When the lines get too close to each other
+ * the grid fades out. When they are far apart, only few lines are visible and
+ * they are drawn one by one instead of caching a huge tile.
+ */
+public class GridRenderer {
+
+	/**
+	 * Color of the grid lines.
+	 */
+	private static final Color GRID_COLOR = Color.GRAY;
+
+	/**
+	 * Grid line distance in view pixels below which the grid is not drawn
+	 * at all.
+	 */
+	public static final double MIN_VISIBLE_SPACING = 4;
+
+	/**
+	 * Grid line distance in view pixels from which the grid is drawn
+	 * fully opaque. Between this and {@link #MIN_VISIBLE_SPACING} the grid
+	 * fades out.
+	 */
+	public static final double OPAQUE_SPACING = 8;
+
+	/**
+	 * Largest tile edge length in device pixels. Above this the grid lines
+	 * are drawn individually.
+	 */
+	public static final int MAX_TILE_SIZE = 256;
+
+	/**
+	 * Cached tile or null.
+	 */
+	private BufferedImage tile;
+
+	/**
+	 * Alpha value the cached tile was created with.
+	 */
+	private int tileAlpha;
+
+	/**
+	 * Draws the grid for the given viewport.
+	 *
+	 * @param graphics
+	 *                graphics object in view coordinates
+	 * @param viewport
+	 *                viewport of the displayed document
+	 * @param gridSpacing
+	 *                grid spacing in model coordinates
+	 */
+	public void draw(Graphics2D graphics, Viewport viewport, int gridSpacing) {
+		double spacing = gridSpacing * viewport.getScale();
+		int alpha = getAlpha(spacing);
+		if (alpha == 0) {
+			return;
+		}
+
+		// The tile is rendered at device resolution and mapped to the
+		// exact spacing so that the grid stays sharp on HiDPI screens and
+		// aligned with model coordinates.
+		double deviceScale = graphics.getTransform().getScaleX();
+		int tileSize = getTileSize(spacing, deviceScale);
+		if (tileSize == 0) {
+			tile = null;
+			drawLines(graphics, viewport, spacing, alpha);
+			return;
+		}
+		if (tile == null || tile.getWidth() != tileSize || tileAlpha != alpha) {
+			tile = createTile(tileSize, alpha, deviceScale);
+			tileAlpha = alpha;
+		}
+		Rectangle2D anchor = new Rectangle2D.Double(viewport.getTranslationX(), viewport.getTranslationY(),
+				spacing, spacing);
+
+		Paint original = graphics.getPaint();
+		graphics.setPaint(new TexturePaint(tile, anchor));
+		graphics.fillRect(0, 0, viewport.getWidth(), viewport.getHeight());
+		graphics.setPaint(original);
+	}
+
+	/**
+	 * Draws each visible grid line separately.
+	 */
+	private static void drawLines(Graphics2D graphics, Viewport viewport, double spacing, int alpha) {
+		Color original = graphics.getColor();
+		graphics.setColor(getColor(alpha));
+		int width = viewport.getWidth();
+		int height = viewport.getHeight();
+		double x = firstLine(viewport.getTranslationX(), spacing);
+		for (; x < width; x += spacing) {
+			int lx = (int) Math.round(x);
+			graphics.drawLine(lx, 0, lx, height);
+		}
+		double y = firstLine(viewport.getTranslationY(), spacing);
+		for (; y < height; y += spacing) {
+			int ly = (int) Math.round(y);
+			graphics.drawLine(0, ly, width, ly);
+		}
+		graphics.setColor(original);
+	}
+
+	/**
+	 * Returns the view coordinate of the first grid line that is not left
+	 * of (or above) the view origin.
+	 */
+	private static double firstLine(double translation, double spacing) {
+		double offset = translation % spacing;
+		return (offset < 0) ? offset + spacing : offset;
+	}
+
+	/**
+	 * Returns the edge length in device pixels of the tile for grid lines
+	 * with the given distance.
+	 *
+	 * @param spacing
+	 *                grid line distance in view pixels
+	 * @param deviceScale
+	 *                scale from view to device pixels
+	 * @return tile size or 0 if the lines should be drawn individually
+	 */
+	static int getTileSize(double spacing, double deviceScale) {
+		double size = spacing * deviceScale;
+		if (size > MAX_TILE_SIZE) {
+			return 0;
+		}
+		return Math.max(1, (int) Math.round(size));
+	}
+
+	/**
+	 * Returns the alpha value of grid lines with the given distance in
+	 * view pixels.
+	 *
+	 * @param spacing
+	 *                grid line distance in view pixels
+	 * @return alpha value between 0 and 255
+	 */
+	static int getAlpha(double spacing) {
+		if (spacing < MIN_VISIBLE_SPACING) {
+			return 0;
+		}
+		if (spacing >= OPAQUE_SPACING) {
+			return 255;
+		}
+		double fraction = (spacing - MIN_VISIBLE_SPACING) / (OPAQUE_SPACING - MIN_VISIBLE_SPACING);
+		return (int) Math.round(255 * fraction);
+	}
+
+	/**
+	 * Creates a tile that contains one grid cell with lines along its top
+	 * and left edge. The lines are as wide as a view pixel.
+	 */
+	private static BufferedImage createTile(int size, int alpha, double deviceScale) {
+		BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(getColor(alpha));
+		int lineWidth = Math.max(1, Math.min(size, (int) Math.round(deviceScale)));
+		graphics.fillRect(0, 0, size, lineWidth);
+		graphics.fillRect(0, 0, lineWidth, size);
+		graphics.dispose();
+		return image;
+	}
+
+	private static Color getColor(int alpha) {
+		return new Color(GRID_COLOR.getRed(), GRID_COLOR.getGreen(), GRID_COLOR.getBlue(), alpha);
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,137 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.editor;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import uniol.aptgui.document.PaintProfiler;
+import uniol.aptgui.document.PaintProfiler.FrameStatistics;
+
+/**
+ * Heads-up display that shows the statistics recorded by a
+ * {@link PaintProfiler} in the top left corner of the editor.
+ */
+public class PaintStatisticsHud {
+
+	/**
+	 * Area covered by the display in view coordinates.
+	 */
+	public static final Rectangle BOUNDS = new Rectangle(5, 5, 250, 215);
+
+	/**
+	 * Maximum number of sections that are listed.
+	 */
+	private static final int MAX_SECTIONS = 6;
+
+	private static final Color BACKGROUND = new Color(255, 255, 255, 220);
+	private static final Color FOREGROUND = Color.DARK_GRAY;
+	private static final Color BAR_COLOR = new Color(70, 130, 180);
+	private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+
+	private PaintStatisticsHud() {
+	}
+
+	/**
+	 * Draws the statistics of the given profiler.
+	 *
+	 * @param graphics
+	 *                graphics object in view coordinates
+	 * @param profiler
+	 *                profiler whose statistics are shown
+	 */
+	public static void draw(Graphics2D graphics, PaintProfiler profiler) {
+		final FrameStatistics last = profiler.getLastFrame();
+		if (last == null) {
+			return;
+		}
+		List<FrameStatistics> frames = profiler.getFrames();
+		double sum = 0;
+		double max = 0;
+		for (FrameStatistics frame : frames) {
+			sum += frame.getTotalMillis();
+			max = Math.max(max, frame.getTotalMillis());
+		}
+
+		List<String> lines = new ArrayList<>();
+		lines.add(String.format("Frame %d: %.2f ms", last.getNumber(), last.getTotalMillis()));
+		lines.add(String.format("Avg %.2f ms, max %.2f ms (%d frames)", sum / frames.size(), max,
+				frames.size()));
+		lines.add(String.format("Elements drawn: %d", last.getElementCount()));
+		if (last.getAllocatedBytes() >= 0) {
+			lines.add(String.format("Allocated: %d KiB", last.getAllocatedBytes() / 1024));
+		}
+		List<String> sections = new ArrayList<>(last.getSections());
+		Collections.sort(sections, new Comparator<String>() {
+			@Override
+			public int compare(String s1, String s2) {
+				return Double.compare(last.getSectionMillis(s2), last.getSectionMillis(s1));
+			}
+		});
+		for (String section : sections.subList(0, Math.min(MAX_SECTIONS, sections.size()))) {
+			lines.add(String.format("  %-18s %7.2f ms", section, last.getSectionMillis(section)));
+		}
+
+		graphics.setColor(BACKGROUND);
+		graphics.fill(BOUNDS);
+		graphics.setColor(FOREGROUND);
+		graphics.draw(BOUNDS);
+		graphics.setFont(FONT);
+		FontMetrics metrics = graphics.getFontMetrics();
+		int x = BOUNDS.x + 5;
+		int y = BOUNDS.y + 5 + metrics.getAscent();
+		for (String line : lines) {
+			graphics.drawString(line, x, y);
+			y += metrics.getHeight();
+		}
+		drawHistogram(graphics, profiler.getHistogram(), frames.size(), x, BOUNDS.y + BOUNDS.height - 5,
+				metrics);
+	}
+
+	/**
+	 * Draws the frame time histogram as bars above the given baseline.
+	 */
+	private static void drawHistogram(Graphics2D graphics, int[] histogram, int frameCount, int x, int baseline,
+			FontMetrics metrics) {
+		int barWidth = (BOUNDS.width - 10) / histogram.length;
+		int maxHeight = 35;
+		int labelBaseline = baseline;
+		baseline -= metrics.getHeight();
+		for (int i = 0; i < histogram.length; i++) {
+			int height = (int) Math.round((double) histogram[i] / frameCount * maxHeight);
+			graphics.setColor(BAR_COLOR);
+			graphics.fillRect(x + i * barWidth, baseline - height, barWidth - 2, height);
+			graphics.setColor(FOREGROUND);
+			double bound = PaintProfiler.getHistogramBound(i);
+			String label = Double.isInfinite(bound) ? ">" : "<" + (int) bound;
+			graphics.drawString(label, x + i * barWidth, labelBaseline);
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,164 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.editor;
+
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.Timer;
+
+import uniol.aptgui.document.RenderingOptions;
+
+/**
+ * Merges repaint requests for an editor view so that it gets painted at most
+ * once per frame. Requests that arrive before the frame interval elapsed are
+ * accumulated and flushed together when the interval is over. The frame rate
+ * is limited by {@link RenderingOptions#getMaxFrameRate()} or, if that is not
+ * set, by the refresh rate of the display.
+ */
+public class RepaintScheduler {
+
+	/**
+	 * Frame rate that is used if the display refresh rate is unknown.
+	 */
+	public static final int DEFAULT_FRAME_RATE = 60;
+
+	private final EditorView view;
+	private final RenderingOptions renderingOptions;
+	private final int displayRefreshRate;
+	private final Timer timer;
+
+	/**
+	 * True if the whole view needs to be repainted.
+	 */
+	private boolean fullRepaintPending;
+
+	/**
+	 * Accumulated area that needs to be repainted or null.
+	 */
+	private Rectangle pendingArea;
+
+	/**
+	 * Time of the last flush in nanoseconds.
+	 */
+	private long lastFlushTime;
+
+	/**
+	 * Creates a scheduler for the given view. Must be used on the Event
+	 * Dispatch Thread only.
+	 *
+	 * @param view
+	 *                view to repaint
+	 * @param renderingOptions
+	 *                rendering options that contain the frame rate limit
+	 */
+	public RepaintScheduler(EditorView view, RenderingOptions renderingOptions) {
+		this.view = view;
+		this.renderingOptions = renderingOptions;
+		this.displayRefreshRate = getDisplayRefreshRate();
+		this.timer = new Timer(0, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				flush();
+			}
+		});
+		this.timer.setRepeats(false);
+		this.lastFlushTime = System.nanoTime() - TimeUnit.SECONDS.toNanos(1);
+	}
+
+	/**
+	 * Schedules a repaint of the whole view.
+	 */
+	public void repaint() {
+		fullRepaintPending = true;
+		pendingArea = null;
+		schedule();
+	}
+
+	/**
+	 * Schedules a repaint of the given area.
+	 *
+	 * @param area
+	 *                area in view coordinates
+	 */
+	public void repaint(Rectangle area) {
+		if (!fullRepaintPending) {
+			if (pendingArea == null) {
+				pendingArea = new Rectangle(area);
+			} else {
+				pendingArea.add(area);
+			}
+		}
+		schedule();
+	}
+
+	/**
+	 * Returns the frame rate that is currently in effect.
+	 *
+	 * @return frames per second
+	 */
+	public int getFrameRate() {
+		int maxFrameRate = renderingOptions.getMaxFrameRate();
+		return (maxFrameRate > 0) ? maxFrameRate : displayRefreshRate;
+	}
+
+	private void schedule() {
+		if (timer.isRunning()) {
+			// The pending requests get flushed with the next frame.
+			return;
+		}
+		long frameInterval = TimeUnit.SECONDS.toNanos(1) / getFrameRate();
+		long remaining = lastFlushTime + frameInterval - System.nanoTime();
+		if (remaining <= 0) {
+			flush();
+		} else {
+			timer.setInitialDelay((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+			timer.start();
+		}
+	}
+
+	private void flush() {
+		lastFlushTime = System.nanoTime();
+		if (fullRepaintPending) {
+			view.repaint();
+		} else if (pendingArea != null) {
+			view.repaint(pendingArea);
+		}
+		fullRepaintPending = false;
+		pendingArea = null;
+	}
+
+	private static int getDisplayRefreshRate() {
+		if (GraphicsEnvironment.isHeadless()) {
+			return DEFAULT_FRAME_RATE;
+		}
+		DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+				.getDisplayMode();
+		int refreshRate = mode.getRefreshRate();
+		return (refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN) ? DEFAULT_FRAME_RATE : refreshRate;
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,169 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.editor;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+import uniol.aptgui.document.Document;
+import uniol.aptgui.document.Viewport;
+
+/**
+ * Off-screen image that caches the static layer of a document, i.e. the grid
+ * and all elements that are not affected by interactive editing. The image
+ * stays valid as long as the viewport, the document revision and the grid
+ * spacing stay the same. Pixels are stored at device resolution so the
+ * image stays sharp on scaled displays.
+ */
+public class StaticLayer {
+
+	/**
+	 * Cached image or null if none was created yet.
+	 */
+	private BufferedImage image;
+
+	/**
+	 * Viewport that was used to render the image.
+	 */
+	private Viewport viewport;
+
+	/**
+	 * Document revision that was rendered into the image.
+	 */
+	private long revision;
+
+	/**
+	 * Grid spacing that was used to render the image, 0 if there was no
+	 * grid.
+	 */
+	private int gridSpacing;
+
+	/**
+	 * Scale from view coordinates to image pixels.
+	 */
+	private double deviceScale = 1.0;
+
+	/**
+	 * Returns true if the cached image can be drawn as-is for the given
+	 * document state.
+	 *
+	 * @param graphics
+	 *                graphics object the image is going to be drawn to
+	 * @param document
+	 *                document that is displayed
+	 * @param gridSpacing
+	 *                current grid spacing, 0 if no grid is shown
+	 * @return true if the image is up-to-date
+	 */
+	public boolean isValid(Graphics2D graphics, Document<?> document, int gridSpacing) {
+		return image != null
+			&& revision == document.getRevision()
+			&& this.gridSpacing == gridSpacing
+			&& deviceScale == getDeviceScale(graphics)
+			&& document.getViewport().equals(viewport);
+	}
+
+	/**
+	 * Clears the cached image and returns a graphics object that can be
+	 * used to render the static layer into it using view coordinates. The
+	 * caller must dispose the returned graphics object.
+	 *
+	 * @param graphics
+	 *                graphics object the image is going to be drawn to
+	 * @param document
+	 *                document that is displayed
+	 * @param gridSpacing
+	 *                current grid spacing, 0 if no grid is shown
+	 * @return graphics object to render the layer with or null if the
+	 *         viewport is empty
+	 */
+	public Graphics2D render(Graphics2D graphics, Document<?> document, int gridSpacing) {
+		Viewport current = document.getViewport();
+		double scale = getDeviceScale(graphics);
+		int width = (int) Math.ceil(current.getWidth() * scale);
+		int height = (int) Math.ceil(current.getHeight() * scale);
+		if (width <= 0 || height <= 0) {
+			invalidate();
+			return null;
+		}
+
+		if (image == null || image.getWidth() != width || image.getHeight() != height) {
+			image = createImage(graphics.getDeviceConfiguration(), width, height);
+		}
+		this.viewport = new Viewport(current);
+		this.revision = document.getRevision();
+		this.gridSpacing = gridSpacing;
+		this.deviceScale = scale;
+
+		Graphics2D layerGraphics = image.createGraphics();
+		layerGraphics.setComposite(AlphaComposite.Clear);
+		layerGraphics.fillRect(0, 0, width, height);
+		layerGraphics.setComposite(AlphaComposite.SrcOver);
+		layerGraphics.scale(scale, scale);
+		return layerGraphics;
+	}
+
+	/**
+	 * Draws the cached image in view coordinates.
+	 *
+	 * @param graphics
+	 *                graphics object to draw to
+	 */
+	public void draw(Graphics2D graphics) {
+		if (image == null) {
+			return;
+		}
+		AffineTransform original = graphics.getTransform();
+		graphics.scale(1 / deviceScale, 1 / deviceScale);
+		graphics.drawImage(image, 0, 0, null);
+		graphics.setTransform(original);
+	}
+
+	/**
+	 * Discards the cached image.
+	 */
+	public void invalidate() {
+		image = null;
+		viewport = null;
+	}
+
+	private static BufferedImage createImage(GraphicsConfiguration gc, int width, int height) {
+		if (gc != null) {
+			return gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+		}
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	static double getDeviceScale(Graphics2D graphics) {
+		GraphicsConfiguration gc = graphics.getDeviceConfiguration();
+		if (gc == null) {
+			return 1.0;
+		}
+		double scale = gc.getDefaultTransform().getScaleX();
+		return scale > 0 ? scale : 1.0;
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -20,6 +20,7 @@
 package uniol.aptgui.editor.features;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 
 import uniol.aptgui.document.Document;
@@ -80,7 +81,7 @@ public class HoverFeature extends HoverEffectFeature {
 			}
 
 			@Override
-			public void onDocumentDirty(Document<?> source) {
+			public void onDocumentDirty(Document<?> source, Rectangle dirtyArea) {
 				// Empty
 			}
 
@@ -116,19 +117,27 @@ public class HoverFeature extends HoverEffectFeature {
 		GraphicalElement elem = document.getGraphicalElementAt(modelPosition, true);
 
 		// Display breakpoint handle if necessary
+		boolean changed = false;
 		if (elem instanceof GraphicalEdge) {
 			GraphicalEdge edge = (GraphicalEdge) elem;
 			int bpIndex = edge.getClosestBreakpointIndex(modelPosition);
 			if (bpIndex != -1) {
-				breakpointHandle.setCenter(edge.getBreakpoint(bpIndex));
-				breakpointHandle.setVisible(true);
+				Point breakpoint = edge.getBreakpoint(bpIndex);
+				if (!breakpointHandle.isVisible() || !breakpoint.equals(breakpointHandle.getCenter())) {
+					breakpointHandle.setCenter(breakpoint);
+					breakpointHandle.setVisible(true);
+					changed = true;
+				}
 			}
-		} else {
+		} else if (breakpointHandle.isVisible()) {
 			breakpointHandle.setVisible(false);
+			changed = true;
 		}
 
-		setHoverEffects(elem);
-		document.fireDocumentDirty();
+		// Only repaint if something changed
+		if (setHoverEffects(elem) || changed) {
+			document.fireDocumentDirty();
+		}
 	}
 
 	@Override
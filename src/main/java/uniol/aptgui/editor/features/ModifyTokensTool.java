@@ -86,8 +86,9 @@ public class ModifyTokensTool extends HoverEffectFeature {
 	public void mouseMoved(MouseEvent e) {
 		Point modelPoint = viewport.transformInverse(e.getPoint());
 		GraphicalElement element = document.getGraphicalElementAt(modelPoint);
-		setHoverEffects(element);
-		document.fireDocumentDirty();
+		if (setHoverEffects(element)) {
+			document.fireDocumentDirty();
+		}
 	}
 
 	@Override
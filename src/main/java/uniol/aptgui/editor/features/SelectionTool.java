@@ -21,7 +21,11 @@ package uniol.aptgui.editor.features;
 
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.Shape;
 import java.awt.event.MouseEvent;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 import uniol.aptgui.commands.AddBreakpointCommand;
 import uniol.aptgui.commands.History;
@@ -34,16 +38,18 @@ import uniol.aptgui.document.graphical.GraphicalElement;
 import uniol.aptgui.document.graphical.edges.GraphicalEdge;
 import uniol.aptgui.document.graphical.nodes.GraphicalNode;
 import uniol.aptgui.document.graphical.special.Frame;
+import uniol.aptgui.document.graphical.special.Lasso;
 import uniol.aptgui.editor.features.base.Feature;
 
 /**
  * The selection tool gives the user the ability to select elements, move them
- * and modify edge paths.
+ * and modify edge paths. Dragging on empty space selects all elements inside a
+ * rectangular frame, or inside a freeform lasso if shift is held down.
  */
 public class SelectionTool extends Feature {
 
 	private static enum State {
-		INIT, DRAG_SELECTION, DRAG_BREAKPOINT, DRAG_FRAME, SELECT_EDGE_OR_MODIFY_BREAKPOINT
+		INIT, DRAG_SELECTION, DRAG_BREAKPOINT, DRAG_FRAME, DRAG_LASSO, SELECT_EDGE_OR_MODIFY_BREAKPOINT
 	}
 
 	/**
@@ -99,6 +105,29 @@ public class SelectionTool extends Feature {
 	 */
 	private Frame selectionFrame;
 
+	/**
+	 * Graphical object that represents the freeform selection lasso.
+	 */
+	private Lasso selectionLasso;
+
+	/**
+	 * Minimum distance in view pixels between two points of the lasso.
+	 */
+	private static final double LASSO_POINT_DISTANCE = 4;
+
+	/**
+	 * Elements that were found inside the selection frame or lasso the last
+	 * time the selection was updated or null if there was no update yet.
+	 */
+	private Set<GraphicalElement> areaSelection;
+
+	/**
+	 * Set that the next area query is written to. It is swapped with
+	 * {@link #areaSelection} when the selection changes, so that dragging
+	 * does not allocate a new set per mouse event.
+	 */
+	private Set<GraphicalElement> areaQuery;
+
 	/**
 	 * Creates a new SelectionTool that operates on the given document.
 	 *
@@ -123,12 +152,18 @@ public class SelectionTool extends Feature {
 		this.dragSource = null;
 		this.breakpointCreated = false;
 		this.selectionFrame = new Frame();
+		this.selectionLasso = new Lasso();
+		this.areaSelection = null;
+		this.areaQuery = new HashSet<>();
 		document.add(selectionFrame);
+		document.add(selectionLasso);
 	}
 
 	@Override
 	public void onDeactivated() {
+		document.clearDragPreview();
 		document.remove(selectionFrame);
+		document.remove(selectionLasso);
 	}
 
 	@Override
@@ -155,9 +190,16 @@ public class SelectionTool extends Feature {
 		} else if (elem instanceof GraphicalEdge) {
 			dragSource = modelPosition;
 			state = State.SELECT_EDGE_OR_MODIFY_BREAKPOINT;
+		} else if (elem == null && e.isShiftDown()) {
+			// Prepare for selection with a lasso
+			dragSource = modelPosition;
+			selectionLasso.reset(modelPosition, LASSO_POINT_DISTANCE / viewport.getScale());
+			areaSelection = null;
+			state = State.DRAG_LASSO;
 		} else if (elem == null) {
 			// Prepare for selection with a frame
 			dragSource = modelPosition;
+			areaSelection = null;
 			state = State.DRAG_FRAME;
 		}
 	}
@@ -165,11 +207,15 @@ public class SelectionTool extends Feature {
 	@Override
 	public void mouseReleased(MouseEvent e) {
 		Point modelPosition = viewport.transformInverse(e.getPoint());
+		document.clearDraggedElements();
 
-		if (state == State.DRAG_SELECTION && !translateElementsCommand.isIdentity()) {
+		if (state == State.DRAG_SELECTION) {
 			// If the selection was dragged, commit the translation
-			translateElementsCommand.unapplyTranslation();
-			history.execute(translateElementsCommand);
+			document.clearDragPreview();
+			if (!translateElementsCommand.isIdentity()) {
+				history.execute(translateElementsCommand);
+			}
+			document.fireDocumentDirty();
 			state = State.INIT;
 		} else if (state == State.DRAG_BREAKPOINT && !translateBreakpointCommand.isIdentity()) {
 			// If a breakpoint was dragged, commit the translation
@@ -189,17 +235,16 @@ public class SelectionTool extends Feature {
 			selectElementAt(modelPosition, e.isControlDown());
 			state = State.INIT;
 		} else if (state == State.DRAG_FRAME) {
-			clearSelection();
-			Rectangle frame = getSelectionFrameRect(dragSource, modelPosition);
-			for (GraphicalElement elem : document.getGraphicalElements()) {
-				Rectangle bounds = elem.getBounds();
-				if (frame.contains(bounds)) {
-					document.addToSelection(elem);
-				}
-			}
+			selectElementsIn(getSelectionFrameRect(dragSource, modelPosition));
 			selectionFrame.setVisible(false);
-			document.fireSelectionChanged();
 			document.fireDocumentDirty();
+			state = State.INIT;
+		} else if (state == State.DRAG_LASSO) {
+			selectionLasso.addPoint(modelPosition);
+			selectElementsIn(selectionLasso.getArea());
+			selectionLasso.setVisible(false);
+			document.fireDocumentDirty();
+			state = State.INIT;
 		}
 	}
 
@@ -220,11 +265,16 @@ public class SelectionTool extends Feature {
 		GraphicalElement elem = document.getGraphicalElementAt(dragSource, true);
 		if ((state == State.INIT && document.getSelection().contains(elem) && elem instanceof GraphicalNode)
 				|| state == State.DRAG_SELECTION) {
-			// Only translate elements when grabbed by a node
-			translateElementsCommand.unapplyTranslation();
+			// Only translate elements when grabbed by a node. Until
+			// the mouse is released the elements are only shown
+			// translated and not actually modified.
+			if (state != State.DRAG_SELECTION) {
+				document.setDragPreview(translateElementsCommand.getElements());
+				state = State.DRAG_SELECTION;
+			}
 			translateElementsCommand.setTranslation(dx, dy);
-			translateElementsCommand.applyTranslation();
-			state = State.DRAG_SELECTION;
+			document.setDragPreviewOffset(dx, dy);
+			document.fireDocumentDirty();
 		} else if (state == State.DRAG_BREAKPOINT) {
 			translateBreakpointCommand.unapplyTranslation();
 			translateBreakpointCommand.translate(dx, dy);
@@ -236,8 +286,35 @@ public class SelectionTool extends Feature {
 			Rectangle frame = getSelectionFrameRect(dragSource, modelPosition);
 			selectionFrame.setRectangle(frame);
 			selectionFrame.setVisible(true);
+			selectElementsIn(frame);
 			document.fireDocumentDirty();
+		} else if (state == State.DRAG_LASSO) {
+			if (selectionLasso.addPoint(modelPosition)) {
+				selectionLasso.setVisible(true);
+				selectElementsIn(selectionLasso.getArea());
+				document.fireDocumentDirty();
+			}
+		}
+	}
+
+	/**
+	 * Replaces the selection with all elements that lie completely inside
+	 * the given area. Nothing happens if these are the same elements as
+	 * during the last call, so that the selection can be updated cheaply
+	 * while the mouse is dragged.
+	 *
+	 * @param area
+	 *                selection area in model coordinates
+	 */
+	private void selectElementsIn(Shape area) {
+		Set<GraphicalElement> elements = areaQuery;
+		document.getGraphicalElementsIn(area, elements);
+		if (elements.equals(areaSelection)) {
+			return;
 		}
+		areaQuery = (areaSelection != null) ? areaSelection : new HashSet<GraphicalElement>();
+		areaSelection = elements;
+		document.setSelection(elements);
 	}
 
 	private Rectangle getSelectionFrameRect(Point p1, Point p2) {
@@ -288,6 +365,7 @@ public class SelectionTool extends Feature {
 			if (bpIndex != -1) {
 				dragSource = new Point(edge.getBreakpoint(bpIndex));
 				translateBreakpointCommand = new TranslateBreakpointCommand(document, edge, bpIndex);
+				document.setDraggedElements(Collections.singleton(edge));
 			}
 		}
 	}
@@ -322,12 +400,6 @@ public class SelectionTool extends Feature {
 		}
 	}
 
-	private void clearSelection() {
-		document.clearSelection();
-		document.fireSelectionChanged();
-		document.fireDocumentDirty();
-	}
-
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -39,11 +39,13 @@ public abstract class HoverEffectFeature extends Feature {
 	 *
 	 * @param currentHoverElem
 	 *                the element that is currently at the cursor position
+	 * @return true if the hovered element changed and the document needs
+	 *         to be redrawn
 	 */
-	protected void setHoverEffects(GraphicalElement currentHoverElem) {
+	protected boolean setHoverEffects(GraphicalElement currentHoverElem) {
 		// Do nothing if the element didn't change.
 		if (hoverElement == currentHoverElem) {
-			return;
+			return false;
 		}
 		// Reset old hover effects.
 		removeHoverEffects();
@@ -51,6 +53,7 @@ public abstract class HoverEffectFeature extends Feature {
 		hoverElement = currentHoverElem;
 		// Apply new hover effects.
 		applyHoverEffects();
+		return true;
 	}
 
 	/**
@@ -31,6 +31,7 @@ import javax.imageio.ImageIO;
 import com.google.inject.Inject;
 
 import uniol.apt.io.renderer.RenderException;
+import uniol.aptgui.document.DetailLevel;
 import uniol.aptgui.document.Document;
 import uniol.aptgui.document.RenderingOptions;
 import uniol.aptgui.document.Viewport;
@@ -72,7 +73,7 @@ public class PngDocumentRenderer implements DocumentRenderer {
 		// Set prepared viewport on document for drawing.
 		Viewport original = document.getViewport();
 		document.setViewport(viewport);
-		document.draw(imageGraphics, renderingOptions);
+		document.draw(imageGraphics, renderingOptions, DetailLevel.FULL);
 		document.setViewport(original);
 
 		// Write to file.
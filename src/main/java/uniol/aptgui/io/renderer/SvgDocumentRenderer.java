@@ -31,6 +31,7 @@ import org.w3c.dom.DOMImplementation;
 import com.google.inject.Inject;
 
 import uniol.apt.io.renderer.RenderException;
+import uniol.aptgui.document.DetailLevel;
 import uniol.aptgui.document.Document;
 import uniol.aptgui.document.RenderingOptions;
 import uniol.aptgui.document.Viewport;
@@ -68,7 +69,7 @@ public class SvgDocumentRenderer implements DocumentRenderer {
 		// Draw document with SVG generator.
 		Viewport original = document.getViewport();
 		document.setViewport(viewport);
-		document.draw(svgGenerator, renderingOptions);
+		document.draw(svgGenerator, renderingOptions, DetailLevel.FULL);
 		document.setViewport(original);
 
 		svgGenerator.setSVGCanvasSize(bounds.getSize());
@@ -128,7 +128,7 @@ public class MainWindowPresenterImpl extends AbstractPresenter<MainWindowPresent
 		@Override public void onSelectionChanged(Document<?> source) {
 			eventBus.post(new DocumentSelectionChangedEvent(source));
 		}
-		@Override public void onDocumentDirty(Document<?> source) {
+		@Override public void onDocumentDirty(Document<?> source, Rectangle dirtyArea) {
 		}
 		@Override
 		public void onDocumentChanged(Document<?> source) {
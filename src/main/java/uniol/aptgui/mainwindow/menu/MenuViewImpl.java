@@ -40,6 +40,7 @@ import uniol.aptgui.swing.actions.DeleteElementsAction;
 import uniol.aptgui.swing.actions.DotLayoutAction;
 import uniol.aptgui.swing.actions.ExitAction;
 import uniol.aptgui.swing.actions.ExportAction;
+import uniol.aptgui.swing.actions.ExportPaintStatisticsAction;
 import uniol.aptgui.swing.actions.ImportAction;
 import uniol.aptgui.swing.actions.ModuleAction;
 import uniol.aptgui.swing.actions.ModuleBrowserAction;
@@ -52,12 +53,16 @@ import uniol.aptgui.swing.actions.RenameDocumentAction;
 import uniol.aptgui.swing.actions.SaveAction;
 import uniol.aptgui.swing.actions.SaveAllAction;
 import uniol.aptgui.swing.actions.SaveAsAction;
+import uniol.aptgui.swing.actions.SetBackgroundRenderingAction;
 import uniol.aptgui.swing.actions.SetColorAction;
 import uniol.aptgui.swing.actions.SetDotPathAction;
 import uniol.aptgui.swing.actions.SetGridSpacingAction;
 import uniol.aptgui.swing.actions.SetGridVisibleAction;
 import uniol.aptgui.swing.actions.SetInitialStateAction;
 import uniol.aptgui.swing.actions.SetLabelAction;
+import uniol.aptgui.swing.actions.SetLevelOfDetailAction;
+import uniol.aptgui.swing.actions.SetPaintStatisticsVisibleAction;
+import uniol.aptgui.swing.actions.SetPickingBufferAction;
 import uniol.aptgui.swing.actions.SetPlaceIdLabelVisibleAction;
 import uniol.aptgui.swing.actions.SetSnapToGridAction;
 import uniol.aptgui.swing.actions.SetStateIdLabelVisibleAction;
@@ -118,6 +123,11 @@ public class MenuViewImpl extends JMenuBarView<MenuPresenter> implements MenuVie
 	private final JMenuItem showIdLabelsPlace;
 	private final JMenuItem showIdLabelsTransition;
 	private final JMenuItem showGrid;
+	private final JMenuItem levelOfDetail;
+	private final JMenuItem backgroundRendering;
+	private final JMenuItem pickingBuffer;
+	private final JMenuItem paintStatistics;
+	private final JMenuItem exportPaintStatistics;
 
 	private final JMenu windowMenu;
 	private final JMenuItem cascadeEditorWindows;
@@ -179,11 +189,20 @@ public class MenuViewImpl extends JMenuBarView<MenuPresenter> implements MenuVie
 		showIdLabelsPlace = new JCheckBoxMenuItem(injector.getInstance(SetPlaceIdLabelVisibleAction.class));
 		showIdLabelsTransition = new JCheckBoxMenuItem(injector.getInstance(SetTransitionIdLabelVisibleAction.class));
 		showGrid = new JCheckBoxMenuItem(injector.getInstance(SetGridVisibleAction.class));
+		levelOfDetail = new JCheckBoxMenuItem(injector.getInstance(SetLevelOfDetailAction.class));
+		backgroundRendering = new JCheckBoxMenuItem(injector.getInstance(SetBackgroundRenderingAction.class));
+		pickingBuffer = new JCheckBoxMenuItem(injector.getInstance(SetPickingBufferAction.class));
+		paintStatistics = new JCheckBoxMenuItem(injector.getInstance(SetPaintStatisticsVisibleAction.class));
+		exportPaintStatistics = new JMenuItem(injector.getInstance(ExportPaintStatisticsAction.class));
 
 		showIdLabelsState.setSelected(renderingOptions.isStateIdLabelVisible());
 		showIdLabelsPlace.setSelected(renderingOptions.isPlaceIdLabelVisible());
 		showIdLabelsTransition.setSelected(renderingOptions.isTransitionIdLabelVisible());
 		showGrid.setSelected(renderingOptions.isGridVisible());
+		levelOfDetail.setSelected(renderingOptions.isLevelOfDetailEnabled());
+		backgroundRendering.setSelected(renderingOptions.isBackgroundRenderingEnabled());
+		pickingBuffer.setSelected(renderingOptions.isPickingBufferEnabled());
+		paintStatistics.setSelected(renderingOptions.isPaintStatisticsVisible());
 
 		// Windows
 		windowMenu = new JMenu("Windows");
@@ -267,6 +286,12 @@ public class MenuViewImpl extends JMenuBarView<MenuPresenter> implements MenuVie
 		viewMenu.add(showIdLabelsTransition);
 		viewMenu.addSeparator();
 		viewMenu.add(showGrid);
+		viewMenu.add(levelOfDetail);
+		viewMenu.add(backgroundRendering);
+		viewMenu.add(pickingBuffer);
+		viewMenu.addSeparator();
+		viewMenu.add(paintStatistics);
+		viewMenu.add(exportPaintStatistics);
 	}
 
 	private void setupWindowMenu() {
@@ -61,7 +61,7 @@ public class AddBreakpointAction extends DocumentAction {
 			Point selectionPos = document.getLastSelectionPosition();
 
 			Command cmd = new AddBreakpointCommand(document, edge, selectionPos);
-			app.getHistory().execute(cmd);
+			app.getHistory(document).execute(cmd);
 		}
 	}
 
@@ -66,7 +66,7 @@ public class DeleteElementsAction extends DocumentAction {
 			} else if (document instanceof TsDocument) {
 				cmd = new RemoveTsElementsCommand((TsDocument) document, selection);
 			}
-			app.getHistory().execute(cmd);
+			app.getHistory(document).execute(cmd);
 		}
 	}
 
@@ -55,7 +55,7 @@ public class DotLayoutAction extends DocumentAction {
 	public void actionPerformed(ActionEvent e) {
 		Document<?> document = app.getActiveDocument();
 		if (document != null) {
-			app.getHistory().execute(new ApplyLayoutCommand(document, graphvizLayout));
+			app.getHistory(document).execute(new ApplyLayoutCommand(document, graphvizLayout));
 		}
 	}
 
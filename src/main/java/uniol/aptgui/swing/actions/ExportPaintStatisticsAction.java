@@ -0,0 +1,84 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.swing.actions;
+
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import javax.swing.JFileChooser;
+import javax.swing.filechooser.FileNameExtensionFilter;
+
+import com.google.common.eventbus.EventBus;
+import com.google.inject.Inject;
+
+import uniol.aptgui.Application;
+import uniol.aptgui.document.Document;
+import uniol.aptgui.document.PaintProfiler;
+import uniol.aptgui.swing.actions.base.DocumentAction;
+
+@SuppressWarnings("serial")
+public class ExportPaintStatisticsAction extends DocumentAction {
+
+	@Inject
+	public ExportPaintStatisticsAction(Application app, EventBus eventBus) {
+		super(app, eventBus);
+		String name = "Export Paint Statistics...";
+		putValue(NAME, name);
+		putValue(SHORT_DESCRIPTION, name);
+	}
+
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		Document<?> document = app.getDocument(app.getActiveWindow());
+		PaintProfiler profiler = document.getPaintProfiler();
+		String title = (String) getValue(NAME);
+		if (profiler == null || profiler.getFrames().isEmpty()) {
+			app.getMainWindow().showMessage(title,
+					"No paint statistics have been recorded for this document yet. "
+					+ "Enable View > Show Paint Statistics first.");
+			return;
+		}
+
+		JFileChooser fc = new JFileChooser();
+		fc.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+		Component parent = (Component) app.getMainWindow().getView();
+		if (fc.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		File file = fc.getSelectedFile();
+		if (!file.getName().contains(".")) {
+			file = new File(file.getPath() + ".csv");
+		}
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			profiler.writeCsv(writer);
+		} catch (IOException ex) {
+			app.getMainWindow().showException(title, ex);
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
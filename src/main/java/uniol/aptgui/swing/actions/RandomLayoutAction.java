@@ -54,7 +54,7 @@ public class RandomLayoutAction extends DocumentAction {
 	public void actionPerformed(ActionEvent e) {
 		Document<?> document = app.getActiveDocument();
 		if (document != null) {
-			app.getHistory().execute(new ApplyLayoutCommand(document, randomLayout));
+			app.getHistory(document).execute(new ApplyLayoutCommand(document, randomLayout));
 		}
 	}
 
@@ -51,7 +51,7 @@ public class RemoveAllBreakpointsAction extends DocumentAction {
 		if (document != null) {
 			GraphicalEdge edge = getEdge();
 			Command cmd = new RemoveAllBreakpointsCommand(document, edge);
-			app.getHistory().execute(cmd);
+			app.getHistory(document).execute(cmd);
 		}
 	}
 
@@ -55,7 +55,7 @@ public class RemoveBreakpointAction extends DocumentAction {
 			int bpIndex = edge.getClosestBreakpointIndex(selPos);
 			assert bpIndex != -1;
 			Command cmd = new RemoveBreakpointCommand(document, edge, bpIndex);
-			app.getHistory().execute(cmd);
+			app.getHistory(document).execute(cmd);
 		}
 	}
 
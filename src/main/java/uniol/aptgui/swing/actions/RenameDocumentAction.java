@@ -53,7 +53,7 @@ public class RenameDocumentAction extends DocumentAction {
 		String result = showNameInputDialog(document.getName());
 		if (result != null) {
 			Command cmd = new RenameDocumentCommand(document, result);
-			app.getHistory().execute(cmd);
+			app.getHistory(document).execute(cmd);
 		}
 	}
 
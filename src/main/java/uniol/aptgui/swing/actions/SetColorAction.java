@@ -62,7 +62,7 @@ public class SetColorAction extends DocumentAction {
 		Color result = getUserColorChoice(selection);
 		if (result != null) {
 			Command cmd = new SetColorCommand(document, selection, result);
-			app.getHistory().execute(cmd);
+			app.getHistory(document).execute(cmd);
 		}
 	}
 
@@ -57,7 +57,7 @@ public class SetGridSpacingAction extends AbstractAction {
 			if (newValue > 0) {
 				eo.setGridSpacing(newValue);
 				for (Document<?> doc : app.getDocuments()) {
-					doc.fireDocumentDirty();
+					doc.fireDocumentDirty(true);
 				}
 			} else {
 				showInvalidInputMessage();
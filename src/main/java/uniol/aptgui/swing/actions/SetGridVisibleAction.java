@@ -45,7 +45,7 @@ public class SetGridVisibleAction extends AbstractAction {
 	public void actionPerformed(ActionEvent e) {
 		app.getRenderingOptions().toggleGridVisible();
 		for (Document<?> doc : app.getDocuments()) {
-			doc.fireDocumentDirty();
+			doc.fireDocumentDirty(true);
 		}
 	}
 
@@ -56,7 +56,7 @@ public class SetInitialStateAction extends DocumentAction {
 		assert tsDocument.getSelection().size() == 1;
 		GraphicalState element = (GraphicalState) tsDocument.getSelection().iterator().next();
 		Command cmd = new SetInitialStateCommand(tsDocument, element);
-		app.getHistory().execute(cmd);
+		app.getHistory(document).execute(cmd);
 	}
 
 	@Override
@@ -50,7 +50,7 @@ public class SetPlaceIdLabelVisibleAction extends AbstractAction {
 	public void actionPerformed(ActionEvent e) {
 		app.getRenderingOptions().togglePlaceIdLabelVisible();
 		for (Document<?> doc : app.getDocuments()) {
-			doc.fireDocumentDirty();
+			doc.fireDocumentDirty(true);
 		}
 	}
 
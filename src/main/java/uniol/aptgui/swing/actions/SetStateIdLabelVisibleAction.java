@@ -50,7 +50,7 @@ public class SetStateIdLabelVisibleAction extends AbstractAction {
 	public void actionPerformed(ActionEvent e) {
 		app.getRenderingOptions().toggleStateIdLabelVisible();
 		for (Document<?> doc : app.getDocuments()) {
-			doc.fireDocumentDirty();
+			doc.fireDocumentDirty(true);
 		}
 	}
 
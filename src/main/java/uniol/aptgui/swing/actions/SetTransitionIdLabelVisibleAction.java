@@ -50,7 +50,7 @@ public class SetTransitionIdLabelVisibleAction extends AbstractAction {
 	public void actionPerformed(ActionEvent e) {
 		app.getRenderingOptions().toggleTransitionIdLabelVisible();
 		for (Document<?> doc : app.getDocuments()) {
-			doc.fireDocumentDirty();
+			doc.fireDocumentDirty(true);
 		}
 	}
 
@@ -29,19 +29,23 @@ import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import com.google.inject.Inject;
 
+import uniol.aptgui.Application;
 import uniol.aptgui.commands.History;
+import uniol.aptgui.document.Document;
 import uniol.aptgui.events.HistoryChangedEvent;
+import uniol.aptgui.events.WindowClosedEvent;
+import uniol.aptgui.events.WindowFocusGainedEvent;
 import uniol.aptgui.swing.Resource;
 
 @SuppressWarnings("serial")
 public class UndoAction extends AbstractAction {
 
 	private static final String ACTION_NAME = "Undo";
-	private final History history;
+	private final Application app;
 
 	@Inject
-	public UndoAction(History history, EventBus eventBus) {
-		this.history = history;
+	public UndoAction(Application app, EventBus eventBus) {
+		this.app = app;
 
 		setNameAndDescription(ACTION_NAME);
 		putValue(SMALL_ICON, Resource.getIconUndo());
@@ -54,12 +58,42 @@ public class UndoAction extends AbstractAction {
 
 	@Override
 	public void actionPerformed(ActionEvent e) {
-		history.undo();
+		History history = app.getHistory();
+		if (history != null) {
+			history.undo();
+		}
 	}
 
 	@Subscribe
 	public void onHistoryChangedEvent(HistoryChangedEvent e) {
-		if (history.canUndo()) {
+		// Only the history of the active document is relevant.
+		if (e.getHistory() == app.getHistory()) {
+			update(e.getHistory());
+		}
+	}
+
+	@Subscribe
+	public void onWindowFocusGainedEvent(WindowFocusGainedEvent e) {
+		Document<?> document = app.getDocument(e.getWindowId());
+		update((document != null) ? app.getHistory(document) : null);
+	}
+
+	@Subscribe
+	public void onWindowClosedEvent(WindowClosedEvent e) {
+		if (app.getDocumentWindows().isEmpty()) {
+			update(null);
+		}
+	}
+
+	/**
+	 * Enables or disables this action and updates its name according to
+	 * the given history.
+	 *
+	 * @param history
+	 *                history of the active document or null
+	 */
+	private void update(History history) {
+		if (history != null && history.canUndo()) {
 			setEnabled(true);
 			setNameAndDescription(ACTION_NAME + " " + history.getNextUndoCommand().getName());
 		} else {
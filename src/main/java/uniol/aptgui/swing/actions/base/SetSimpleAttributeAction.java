@@ -78,7 +78,7 @@ public abstract class SetSimpleAttributeAction<T, U> extends DocumentAction {
 
 		Command cmd = createCommand(document, selection, newValue);
 		if (cmd != null) {
-			app.getHistory().execute(cmd);
+			app.getHistory(document).execute(cmd);
 		}
 	}
 
@@ -20,6 +20,7 @@
 package uniol.aptgui.window;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -81,7 +82,7 @@ public abstract class WindowPresenterImpl<P extends Presenter<V> & WindowPresent
 	 */
 	protected DocumentListener titleChangeListener = new DocumentListener() {
 		@Override public void onSelectionChanged(Document<?> source) {}
-		@Override public void onDocumentDirty(Document<?> source) {}
+		@Override public void onDocumentDirty(Document<?> source, Rectangle dirtyArea) {}
 		@Override
 		public void onDocumentChanged(Document<?> source) {
 			updateTitle();
@@ -0,0 +1,136 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.commands;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.awt.Point;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uniol.apt.adt.extension.IExtensible;
+import uniol.apt.adt.ts.TransitionSystem;
+import uniol.aptgui.document.Document;
+import uniol.aptgui.document.TsDocument;
+import uniol.aptgui.document.graphical.edges.GraphicalArc;
+import uniol.aptgui.document.graphical.nodes.GraphicalState;
+import uniol.aptgui.editor.layout.Layout;
+
+public class ApplyLayoutCommandTest {
+
+	TsDocument document;
+	GraphicalState s0;
+	GraphicalState s1;
+	GraphicalState s2;
+	GraphicalArc arc;
+	GraphicalArc loop;
+	ApplyLayoutCommand cmd;
+
+	@Before
+	public void setUp() {
+		document = new TsDocument(new TransitionSystem());
+		s0 = new GraphicalState();
+		s0.setCenter(new Point(10, 20));
+		s1 = new GraphicalState();
+		s1.setCenter(new Point(30, 40));
+		s2 = new GraphicalState();
+		arc = new GraphicalArc(s0, s1);
+		arc.addBreakpoint(new Point(15, 25));
+		loop = new GraphicalArc(s1, s1);
+		loop.addBreakpoint(new Point(35, 45));
+		document.add(s0, mock(IExtensible.class));
+		document.add(s1, mock(IExtensible.class));
+		document.add(s2, mock(IExtensible.class));
+		document.add(arc, mock(IExtensible.class));
+		document.add(loop, mock(IExtensible.class));
+		cmd = new ApplyLayoutCommand(document, new Layout() {
+			@Override
+			public void applyTo(Document<?> doc, int x0, int y0, int x1, int y1) {
+				s0.setCenter(new Point(100, 200));
+				s1.setCenter(new Point(300, 400));
+				s2.setCenter(new Point(500, 600));
+				arc.translateBreakpoint(0, 5, 5);
+				loop.removeAllBreakpoints();
+			}
+
+			@Override
+			public String getName() {
+				return "Test";
+			}
+		});
+	}
+
+	@Test
+	public void testUndo() {
+		cmd.execute();
+		cmd.undo();
+		assertThat(s0.getCenter(), is(equalTo(new Point(10, 20))));
+		assertThat(s1.getCenter(), is(equalTo(new Point(30, 40))));
+		assertThat(s2.getCenter(), is(nullValue()));
+		assertThat(arc.getBreakpoints(), contains(new Point(15, 25)));
+		assertThat(loop.getBreakpoints(), contains(new Point(35, 45)));
+	}
+
+	@Test
+	public void testRedo() {
+		cmd.execute();
+		cmd.undo();
+		cmd.redo();
+		assertThat(s0.getCenter(), is(equalTo(new Point(100, 200))));
+		assertThat(s1.getCenter(), is(equalTo(new Point(300, 400))));
+		assertThat(s2.getCenter(), is(equalTo(new Point(500, 600))));
+		assertThat(arc.getBreakpoints(), contains(new Point(20, 30)));
+		assertThat(loop.getBreakpoints(), is(empty()));
+	}
+
+	@Test
+	public void testFailedLayoutIsRolledBack() {
+		cmd = new ApplyLayoutCommand(document, new Layout() {
+			@Override
+			public void applyTo(Document<?> doc, int x0, int y0, int x1, int y1) {
+				s0.setCenter(new Point(100, 200));
+				throw new IllegalStateException();
+			}
+
+			@Override
+			public String getName() {
+				return "Failing";
+			}
+		});
+		try {
+			cmd.execute();
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+		assertThat(s0.getCenter(), is(equalTo(new Point(10, 20))));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -22,7 +22,9 @@ package uniol.aptgui.commands;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -34,7 +36,11 @@ import org.mockito.InOrder;
 
 import com.google.common.eventbus.EventBus;
 
+import uniol.apt.adt.pn.PetriNet;
+import uniol.apt.adt.pn.Place;
 import uniol.aptgui.Application;
+import uniol.aptgui.document.PnDocument;
+import uniol.aptgui.document.graphical.nodes.GraphicalPlace;
 
 public class HistoryTest {
 
@@ -49,7 +55,7 @@ public class HistoryTest {
 	public void setUp() {
 		application = mock(Application.class);
 		eventBus = mock(EventBus.class);
-		history = new History(application, eventBus);
+		history = new History(application, eventBus, null);
 		cmd0 = createUndoableCommandMock();
 		cmd1 = createUndoableCommandMock();
 		cmd2 = createUndoableCommandMock();
@@ -118,6 +124,124 @@ public class HistoryTest {
 		inOrder.verify(cmd2).redo();
 	}
 
+	@Test
+	public void testOldestCommandsAreEvicted() {
+		history.setMemoryBudget(250);
+		when(cmd0.getEstimatedSize()).thenReturn(100L);
+		when(cmd1.getEstimatedSize()).thenReturn(100L);
+		when(cmd2.getEstimatedSize()).thenReturn(100L);
+		history.execute(cmd0);
+		history.execute(cmd1);
+		assertThat(history.getEstimatedSize(), is(equalTo(200L)));
+		history.execute(cmd2);
+		assertThat(history.getEstimatedSize(), is(equalTo(200L)));
+		history.undo();
+		history.undo();
+		assertThat(history.canUndo(), is(equalTo(false)));
+		verify(cmd0, never()).undo();
+	}
+
+	@Test
+	public void testMostRecentCommandIsKept() {
+		history.setMemoryBudget(50);
+		when(cmd0.getEstimatedSize()).thenReturn(100L);
+		history.execute(cmd0);
+		assertThat(history.getNextUndoCommand(), is(equalTo(cmd0)));
+	}
+
+	@Test
+	public void testExecuteDropsRedoCommands() {
+		when(cmd0.getEstimatedSize()).thenReturn(100L);
+		when(cmd1.getEstimatedSize()).thenReturn(10L);
+		history.execute(cmd0);
+		history.undo();
+		assertThat(history.getEstimatedSize(), is(equalTo(100L)));
+		history.execute(cmd1);
+		assertThat(history.canRedo(), is(equalTo(false)));
+		assertThat(history.getEstimatedSize(), is(equalTo(10L)));
+	}
+
+	@Test
+	public void testMergeConsecutiveCommands() {
+		when(cmd0.tryMerge(cmd1)).thenReturn(true);
+		history.execute(cmd0);
+		history.execute(cmd1);
+		history.execute(cmd2);
+		verify(cmd1).execute();
+		history.undo();
+		assertThat(history.getNextUndoCommand(), is(equalTo(cmd0)));
+		history.undo();
+		assertThat(history.canUndo(), is(equalTo(false)));
+		verify(cmd1, never()).undo();
+	}
+
+	@Test
+	public void testNoMergeAfterUndo() {
+		when(cmd0.tryMerge(cmd1)).thenReturn(true);
+		history.execute(cmd0);
+		history.execute(cmd2);
+		history.undo();
+		history.execute(cmd1);
+		verify(cmd0, never()).tryMerge(cmd1);
+	}
+
+	@Test
+	public void testMergeWindowStartsAtFirstCommand() throws InterruptedException {
+		history.setMergeWindow(100);
+		when(cmd0.tryMerge(cmd1)).thenReturn(true);
+		when(cmd0.tryMerge(cmd2)).thenReturn(true);
+		history.execute(cmd0);
+		Thread.sleep(60);
+		history.execute(cmd1);
+		Thread.sleep(60);
+		history.execute(cmd2);
+		verify(cmd0, never()).tryMerge(cmd2);
+		assertThat(history.getNextUndoCommand(), is(equalTo(cmd2)));
+	}
+
+	@Test
+	public void testClearDropsDelayedMergeEvent() throws InterruptedException {
+		when(cmd0.tryMerge(cmd1)).thenReturn(true);
+		history.execute(cmd0);
+		history.execute(cmd1);
+		history.clear();
+		reset(eventBus);
+		Thread.sleep(500);
+		verify(eventBus, never()).post(any());
+	}
+
+	@Test
+	public void testModifyTokensCommandsAreMerged() {
+		PetriNet model = new PetriNet();
+		PnDocument document = new PnDocument(model);
+		GraphicalPlace graphicalPlace = new GraphicalPlace();
+		document.add(graphicalPlace, model.createPlace());
+		history = new History(application, eventBus, document);
+		for (int i = 0; i < 3; i++) {
+			history.execute(new ModifyTokensCommand(document, graphicalPlace, 1));
+		}
+		Place place = document.getAssociatedModelElement(graphicalPlace);
+		assertThat(place.getInitialToken().getValue(), is(equalTo(3L)));
+		assertThat(history.getNextUndoCommand().getName(), is(equalTo("Modify Token Count by 3")));
+		history.undo();
+		assertThat(place.getInitialToken().getValue(), is(equalTo(0L)));
+		assertThat(history.canUndo(), is(equalTo(false)));
+	}
+
+	@Test
+	public void testCancellingTokenModificationsAreNotMerged() {
+		PetriNet model = new PetriNet();
+		PnDocument document = new PnDocument(model);
+		GraphicalPlace graphicalPlace = new GraphicalPlace();
+		document.add(graphicalPlace, model.createPlace());
+		history = new History(application, eventBus, document);
+		history.execute(new ModifyTokensCommand(document, graphicalPlace, 1));
+		history.execute(new ModifyTokensCommand(document, graphicalPlace, -1));
+		assertThat(history.getNextUndoCommand().getName(), is(equalTo("Modify Token Count by -1")));
+		history.undo();
+		assertThat(history.getNextUndoCommand().getName(), is(equalTo("Modify Token Count by 1")));
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
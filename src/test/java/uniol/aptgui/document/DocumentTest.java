@@ -0,0 +1,329 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import uniol.apt.adt.extension.IExtensible;
+import uniol.apt.adt.ts.TransitionSystem;
+import uniol.aptgui.document.graphical.GraphicalElement;
+import uniol.aptgui.document.graphical.edges.GraphicalArc;
+import uniol.aptgui.document.graphical.edges.GraphicalEdge;
+import uniol.aptgui.document.graphical.nodes.GraphicalState;
+
+public class DocumentTest {
+
+	TsDocument document;
+	GraphicalState s0;
+	GraphicalState s1;
+	Rectangle dirtyArea;
+
+	@Before
+	public void setUp() {
+		document = new TsDocument(new TransitionSystem());
+		document.getViewport().setWidth(1000);
+		document.getViewport().setHeight(1000);
+		s0 = new GraphicalState();
+		s0.setCenter(new Point(100, 100));
+		s1 = new GraphicalState();
+		s1.setCenter(new Point(800, 800));
+		document.add(s0, mock(IExtensible.class));
+		document.add(s1, mock(IExtensible.class));
+		document.addListener(new DocumentListener() {
+			@Override
+			public void onSelectionChanged(Document<?> source) {
+			}
+
+			@Override
+			public void onDocumentDirty(Document<?> source, Rectangle area) {
+				dirtyArea = area;
+			}
+
+			@Override
+			public void onDocumentChanged(Document<?> source) {
+			}
+		});
+		// The first notification always covers the whole document.
+		document.fireDocumentDirty();
+		assertThat(dirtyArea, is(nullValue()));
+	}
+
+	@Test
+	public void testDirtyAreaCoversChangedElement() {
+		s0.setHighlighted(true);
+		document.fireDocumentDirty();
+		assertThat(dirtyArea, is(notNullValue()));
+		assertThat(dirtyArea.contains(s0.getBounds()), is(equalTo(true)));
+		assertThat(dirtyArea.intersects(s1.getBounds()), is(equalTo(false)));
+	}
+
+	@Test
+	public void testDirtyAreaCoversOldAndNewPosition() {
+		s0.translate(100, 0);
+		document.fireDocumentDirty();
+		assertThat(dirtyArea.contains(new Point(100, 100)), is(equalTo(true)));
+		assertThat(dirtyArea.contains(new Point(200, 100)), is(equalTo(true)));
+	}
+
+	@Test
+	public void testNothingChanged() {
+		s0.setHighlighted(false);
+		document.fireDocumentDirty();
+		assertThat(dirtyArea.isEmpty(), is(equalTo(true)));
+	}
+
+	@Test
+	public void testViewportChangeRepaintsAll() {
+		s0.setHighlighted(true);
+		document.getViewport().translateView(10, 10);
+		document.fireDocumentDirty();
+		assertThat(dirtyArea, is(nullValue()));
+	}
+
+	@Test
+	public void testRepaintAll() {
+		s0.setHighlighted(true);
+		document.fireDocumentDirty(true);
+		assertThat(dirtyArea, is(nullValue()));
+		document.fireDocumentDirty();
+		assertThat(dirtyArea.isEmpty(), is(equalTo(true)));
+	}
+
+	@Test
+	public void testDrawEdges() {
+		GraphicalArc arc = new GraphicalArc(s0, s1);
+		arc.setColor(Color.RED);
+		document.add(arc, mock(IExtensible.class));
+		BufferedImage image = new BufferedImage(1000, 1000, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		document.setVisible(true);
+		document.draw(graphics, new RenderingOptions());
+		graphics.dispose();
+		assertThat(image.getRGB(450, 450), is(equalTo(Color.RED.getRGB())));
+		assertThat(image.getRGB(450, 460), is(equalTo(0)));
+	}
+
+	@Test
+	public void testTransactionMergesNotifications() {
+		DocumentListener listener = mock(DocumentListener.class);
+		DocumentListener other = mock(DocumentListener.class);
+		document.addListener(listener);
+		document.addListener(other);
+		document.beginTransaction();
+		document.beginTransaction();
+		for (int i = 0; i < 10; i++) {
+			s0.translate(10, 0);
+			document.fireSelectionChanged();
+			document.fireDocumentChanged(i == 0);
+			document.fireDocumentDirty();
+		}
+		document.endTransaction();
+		verifyZeroInteractions(listener);
+		document.endTransaction();
+		assertThat(document.isInTransaction(), is(equalTo(false)));
+		assertThat(document.hasUnsavedChanges(), is(equalTo(true)));
+		verify(listener, times(1)).onSelectionChanged(document);
+		verify(listener, times(1)).onDocumentChanged(document);
+		verify(listener, never()).onDocumentDirty(any(Document.class), any(Rectangle.class));
+		// Each listener gets the merged notifications in a single pass.
+		InOrder inOrder = inOrder(listener, other);
+		inOrder.verify(listener).onSelectionChanged(document);
+		inOrder.verify(listener).onDocumentChanged(document);
+		inOrder.verify(other).onSelectionChanged(document);
+		inOrder.verify(other).onDocumentChanged(document);
+	}
+
+	@Test
+	public void testDragPreview() {
+		GraphicalArc arc = new GraphicalArc(s0, s1);
+		arc.setColor(Color.RED);
+		document.add(arc, mock(IExtensible.class));
+		document.fireDocumentDirty();
+		document.addToSelection(s0);
+		document.setDragPreview(Collections.singleton(s0));
+		document.setDragPreviewOffset(0, 100);
+		document.fireDocumentDirty();
+		assertThat(dirtyArea.contains(new Point(100, 100)), is(equalTo(true)));
+		assertThat(dirtyArea.contains(new Point(100, 200)), is(equalTo(true)));
+		assertThat(s0.getCenter(), is(equalTo(new Point(100, 100))));
+
+		BufferedImage image = new BufferedImage(1000, 1000, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		document.setVisible(true);
+		document.draw(graphics, new RenderingOptions());
+		graphics.dispose();
+		// The arc is stretched to the translated node.
+		assertThat(image.getRGB(450, 500), is(equalTo(Color.RED.getRGB())));
+		assertThat(image.getRGB(450, 450), is(equalTo(0)));
+	}
+
+	@Test
+	public void testPickingBuffer() {
+		GraphicalArc arc = new GraphicalArc(s0, s1);
+		document.add(arc, mock(IExtensible.class));
+		document.setPickingBufferEnabled(true);
+		assertThat(document.getGraphicalElementAt(new Point(100, 100)), is(equalTo((Object) s0)));
+		assertThat(document.getGraphicalElementAt(new Point(450, 455)), is(equalTo((Object) arc)));
+		assertThat(document.getGraphicalElementAt(new Point(450, 480)), is(nullValue()));
+		s0.translate(0, 200);
+		assertThat(document.getGraphicalElementAt(new Point(100, 300)), is(equalTo((Object) s0)));
+		assertThat(document.getGraphicalElementAt(new Point(100, 100)), is(nullValue()));
+	}
+
+	@Test
+	public void testAdjacencyIndex() {
+		GraphicalArc arc = new GraphicalArc(s0, s1);
+		GraphicalArc loop = new GraphicalArc(s0, s0);
+		document.add(arc, mock(IExtensible.class));
+		document.add(loop, mock(IExtensible.class));
+		assertThat(document.getOutgoingEdges(s0), containsInAnyOrder((GraphicalEdge) arc, loop));
+		assertThat(document.getIncomingEdges(s1), contains((GraphicalEdge) arc));
+
+		arc.setTarget(s0);
+		assertThat(document.getIncomingEdges(s0), containsInAnyOrder((GraphicalEdge) arc, loop));
+		assertThat(document.getIncomingEdges(s1), is(empty()));
+
+		document.remove(arc);
+		assertThat(document.getOutgoingEdges(s0), contains((GraphicalEdge) loop));
+	}
+
+	@Test
+	public void testSelectNodeSelectsLoops() {
+		GraphicalArc arc = new GraphicalArc(s0, s1);
+		GraphicalArc loop = new GraphicalArc(s0, s0);
+		document.add(arc, mock(IExtensible.class));
+		document.add(loop, mock(IExtensible.class));
+		document.addToSelection(s0);
+		assertThat(loop.isSelected(), is(equalTo(true)));
+		assertThat(arc.isSelected(), is(equalTo(false)));
+	}
+
+	@Test
+	public void testSetSelectionOnlyTouchesChanges() {
+		GraphicalArc loop = new GraphicalArc(s1, s1);
+		document.add(loop, mock(IExtensible.class));
+		document.addToSelection(s0);
+		DocumentListener listener = mock(DocumentListener.class);
+		document.addListener(listener);
+		long revision = document.getRevision();
+		document.setSelection(Arrays.<GraphicalElement>asList(s0, s1));
+		assertThat(document.getSelection(), containsInAnyOrder(s0, s1, loop));
+		assertThat(document.getRevision(), is(equalTo(revision + 1)));
+		verify(listener, times(1)).onSelectionChanged(document);
+		// Selecting the same elements again changes nothing.
+		document.setSelection(Arrays.<GraphicalElement>asList(s0, s1));
+		assertThat(document.getRevision(), is(equalTo(revision + 1)));
+		verify(listener, times(1)).onSelectionChanged(document);
+		document.setSelection(Collections.<GraphicalElement>singleton(s0));
+		assertThat(document.getSelection(), contains((GraphicalElement) s0));
+		assertThat(loop.isSelected(), is(equalTo(false)));
+		assertThat(document.getRevision(), is(equalTo(revision + 2)));
+	}
+
+	@Test
+	public void testMovedNodeUpdatesEdges() {
+		GraphicalArc arc = new GraphicalArc(s0, s1);
+		document.add(arc, mock(IExtensible.class));
+		document.fireDocumentDirty();
+		s1.translate(0, -700);
+		assertThat(document.getGraphicalElementAt(new Point(450, 100)), is(equalTo((Object) arc)));
+	}
+
+	@Test
+	public void testBoundsFollowChanges() {
+		Rectangle bounds = document.getBounds();
+		assertThat(bounds, is(equalTo(s0.getBounds().union(s1.getBounds()))));
+		s1.translate(100, 100);
+		assertThat(document.getBounds(), is(equalTo(s0.getBounds().union(s1.getBounds()))));
+		document.remove(s1);
+		assertThat(document.getBounds(), is(equalTo(s0.getBounds())));
+	}
+
+	@Test
+	public void testCompleteLayout() {
+		assertThat(document.hasCompleteLayout(), is(equalTo(true)));
+		GraphicalState s2 = new GraphicalState();
+		document.add(s2, mock(IExtensible.class));
+		assertThat(document.hasCompleteLayout(), is(equalTo(false)));
+		s2.setCenter(new Point(0, 0));
+		assertThat(document.hasCompleteLayout(), is(equalTo(true)));
+	}
+
+	@Test
+	public void testCoordinateAccessors() {
+		GraphicalArc arc = new GraphicalArc(s0, s1);
+		arc.addBreakpoint(new Point(100, 800));
+		document.add(arc, mock(IExtensible.class));
+		s0.translate(10, 20);
+		arc.translateBreakpoint(0, 5, 5);
+		assertThat(s0.getCenterX(), is(equalTo(110)));
+		assertThat(s0.getCenterY(), is(equalTo(120)));
+		assertThat(arc.getBreakpointX(0), is(equalTo(105)));
+		assertThat(arc.getBreakpointY(0), is(equalTo(805)));
+		assertThat(arc.getBounds(), is(equalTo(new Rectangle(105, 120, 695, 685))));
+	}
+
+	@Test
+	public void testRevisionIgnoresHighlight() {
+		long revision = document.getRevision();
+		s0.setHighlighted(true);
+		assertThat(document.getRevision(), is(equalTo(revision)));
+	}
+
+	@Test
+	public void testRevisionIgnoresSelectedElements() {
+		document.addToSelection(s0);
+		long revision = document.getRevision();
+		s0.translate(10, 10);
+		assertThat(document.getRevision(), is(equalTo(revision)));
+		s1.translate(10, 10);
+		assertThat(document.getRevision(), is(greaterThan(revision)));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
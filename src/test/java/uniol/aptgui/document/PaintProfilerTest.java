@@ -0,0 +1,103 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PaintProfilerTest {
+
+	PaintProfiler profiler;
+
+	@Before
+	public void setUp() {
+		profiler = new PaintProfiler();
+	}
+
+	@Test
+	public void testRecordFrame() {
+		assertThat(profiler.getLastFrame(), is(nullValue()));
+		profiler.beginFrame();
+		assertThat(profiler.isRecording(), is(true));
+		profiler.addTime("Edges", System.nanoTime());
+		profiler.addElements(3);
+		profiler.addElements(2);
+		profiler.endFrame();
+		assertThat(profiler.isRecording(), is(false));
+		assertThat(profiler.getLastFrame().getElementCount(), is(equalTo(5)));
+		assertThat(profiler.getLastFrame().getSections().contains("Edges"), is(true));
+	}
+
+	@Test
+	public void testTypeSectionsAreNamedWhenRead() {
+		profiler.beginFrame();
+		long start = System.nanoTime() - 2000000;
+		start = profiler.addTime(String.class, start);
+		profiler.addTime(String.class, start);
+		profiler.endFrame();
+		assertThat(profiler.getLastFrame().getSections().contains("String"), is(true));
+		assertThat(profiler.getLastFrame().getSectionMillis("String"), is(greaterThanOrEqualTo(2.0)));
+	}
+
+	@Test
+	public void testIgnoreOutsideOfFrame() {
+		profiler.addTime("Edges", System.nanoTime());
+		profiler.addElements(1);
+		assertThat(profiler.getFrames().size(), is(equalTo(0)));
+	}
+
+	@Test
+	public void testHistoryIsBounded() {
+		for (int i = 0; i < PaintProfiler.HISTORY_SIZE + 10; i++) {
+			profiler.beginFrame();
+			profiler.endFrame();
+		}
+		assertThat(profiler.getFrames().size(), is(equalTo(PaintProfiler.HISTORY_SIZE)));
+		assertThat(profiler.getFrames().get(0).getNumber(), is(equalTo(11L)));
+		int sum = 0;
+		for (int count : profiler.getHistogram()) {
+			sum += count;
+		}
+		assertThat(sum, is(equalTo(PaintProfiler.HISTORY_SIZE)));
+	}
+
+	@Test
+	public void testCsvHeader() throws IOException {
+		profiler.beginFrame();
+		profiler.addTime("Grid", System.nanoTime());
+		profiler.endFrame();
+		StringWriter writer = new StringWriter();
+		profiler.writeCsv(writer);
+		assertThat(writer.toString(), startsWith("frame,timestamp,total_ms,elements,allocated_bytes,Grid_ms"));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
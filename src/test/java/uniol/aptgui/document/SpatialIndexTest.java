@@ -0,0 +1,149 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uniol.apt.adt.extension.IExtensible;
+import uniol.apt.adt.ts.TransitionSystem;
+import uniol.aptgui.document.graphical.GraphicalElement;
+import uniol.aptgui.document.graphical.edges.GraphicalArc;
+import uniol.aptgui.document.graphical.edges.GraphicalEdge;
+import uniol.aptgui.document.graphical.nodes.GraphicalState;
+
+public class SpatialIndexTest {
+
+	SpatialIndex index;
+	GraphicalState s0;
+	GraphicalState s1;
+	GraphicalEdge arc;
+
+	@Before
+	public void setUp() {
+		index = new SpatialIndex();
+		s0 = new GraphicalState();
+		s0.setCenter(new Point(0, 0));
+		s1 = new GraphicalState();
+		s1.setCenter(new Point(500, 500));
+		arc = new GraphicalArc(s0, s1);
+	}
+
+	@Test
+	public void testNodeCandidates() {
+		index.update(s0);
+		assertThat(index.getCandidatesAt(new Point(5, 5)), contains((GraphicalElement) s0));
+		assertThat(index.getCandidatesAt(new Point(-15, -15)), contains((GraphicalElement) s0));
+		assertThat(index.getCandidatesAt(new Point(300, 300)), is(empty()));
+	}
+
+	@Test
+	public void testEdgeOnlyOccupiesCellsAlongPath() {
+		index.update(arc);
+		assertThat(index.getCandidatesAt(new Point(250, 250)), contains((GraphicalElement) arc));
+		// Inside the bounding box but far away from the diagonal.
+		assertThat(index.getCandidatesAt(new Point(450, 50)), is(empty()));
+	}
+
+	@Test
+	public void testUpdateAndRemove() {
+		index.update(s0);
+		s0.setCenter(new Point(1000, 1000));
+		index.update(s0);
+		assertThat(index.getCandidatesAt(new Point(0, 0)), is(empty()));
+		assertThat(index.getCandidatesAt(new Point(1000, 1000)), contains((GraphicalElement) s0));
+		index.remove(s0);
+		assertThat(index.getCandidatesAt(new Point(1000, 1000)), is(empty()));
+		assertThat(index.size(), is(equalTo(0)));
+	}
+
+	@Test
+	public void testQuery() {
+		index.update(s0);
+		index.update(s1);
+		index.update(arc);
+		Set<GraphicalElement> result = new HashSet<>();
+		index.query(new Rectangle(-50, -50, 100, 100), result);
+		assertThat(result, containsInAnyOrder(s0, arc));
+		result.clear();
+		index.query(new Rectangle(1000, 1000, 100, 100), result);
+		assertThat(result, is(empty()));
+		result.clear();
+		// Area spanning many more cells than are occupied.
+		index.query(new Rectangle(-100000, -100000, 200000, 200000), result);
+		assertThat(result, containsInAnyOrder(s0, s1, arc));
+	}
+
+	@Test
+	public void testNodeWithoutCenterIsNotIndexed() {
+		GraphicalState s2 = new GraphicalState();
+		index.update(s2);
+		assertThat(index.contains(s2), is(equalTo(false)));
+	}
+
+	@Test
+	public void testDocumentHitTestFollowsMovedNode() {
+		TsDocument document = new TsDocument(new TransitionSystem());
+		document.add(s0, mock(IExtensible.class));
+		document.add(s1, mock(IExtensible.class));
+		document.add(arc, mock(IExtensible.class));
+		assertThat(document.getGraphicalElementAt(new Point(0, 0)), is(equalTo((Object) s0)));
+
+		s0.translate(0, 1000);
+		assertThat(document.getGraphicalElementAt(new Point(0, 0)), is(nullValue()));
+		assertThat(document.getGraphicalElementAt(new Point(0, 1000), true), is(equalTo((Object) s0)));
+		// The arc follows its source node.
+		assertThat(document.getGraphicalElementAt(new Point(250, 750)), is(equalTo((Object) arc)));
+		assertThat(document.getGraphicalElementAt(new Point(250, 250)), is(nullValue()));
+
+		document.remove(arc);
+		assertThat(document.getGraphicalElementAt(new Point(250, 750)), is(nullValue()));
+	}
+
+	@Test
+	public void testDocumentHitTestFollowsBreakpoints() {
+		TsDocument document = new TsDocument(new TransitionSystem());
+		document.add(s0, mock(IExtensible.class));
+		document.add(s1, mock(IExtensible.class));
+		document.add(arc, mock(IExtensible.class));
+		arc.addBreakpoint(new Point(500, 0));
+		assertThat(document.getGraphicalElementAt(new Point(500, 250)), is(equalTo((Object) arc)));
+		arc.translateBreakpoint(0, 0, 1000);
+		assertThat(document.getGraphicalElementAt(new Point(500, 250)), is(not(equalTo((Object) arc))));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
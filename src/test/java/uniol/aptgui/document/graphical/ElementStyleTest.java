@@ -0,0 +1,98 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document.graphical;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import uniol.aptgui.document.graphical.nodes.GraphicalState;
+
+public class ElementStyleTest {
+
+	@Test
+	public void testEqualColorsAreShared() {
+		GraphicalState s0 = new GraphicalState();
+		GraphicalState s1 = new GraphicalState();
+		s0.setColor(Color.decode("#123456"));
+		s1.setColor(Color.decode("#123456"));
+		assertThat(s0.getStyleId(), is(equalTo(s1.getStyleId())));
+		assertThat(s0.getColor(), is(sameInstance(s1.getColor())));
+	}
+
+	@Test
+	public void testFlags() {
+		GraphicalState s0 = new GraphicalState();
+		GraphicalState s1 = new GraphicalState();
+		assertThat(s0.isVisible(), is(true));
+		assertThat(s0.getStyleId(), is(equalTo(ElementStyle.DEFAULT)));
+
+		s0.setSelected(true);
+		s0.setHighlightedError(true);
+		assertThat(s0.isSelected(), is(true));
+		assertThat(s0.hasHighlight(), is(true));
+		assertThat(s0.getDrawingColor(), is(equalTo(Color.RED)));
+		assertThat(s0.getStyleId(), is(not(equalTo(s1.getStyleId()))));
+
+		s0.setSelected(false);
+		s0.setHighlightedError(false);
+		assertThat(s0.getDrawingColor(), is(equalTo(Color.BLACK)));
+		assertThat(s0.getStyleId(), is(equalTo(s1.getStyleId())));
+	}
+
+	@Test
+	public void testRepeatedFlagChangesDoNotIntern() {
+		GraphicalState s0 = new GraphicalState();
+		s0.setColor(Color.decode("#654321"));
+		s0.setHighlighted(true);
+		s0.setHighlighted(false);
+		int count = ElementStyle.getStyleCount();
+		for (int i = 0; i < 10; i++) {
+			s0.setHighlighted(true);
+			s0.setHighlighted(false);
+			s0.setColor(Color.decode("#654321"));
+		}
+		assertThat(ElementStyle.getStyleCount(), is(equalTo(count)));
+		assertThat(s0.getStyle().withFlag(ElementStyle.HIGHLIGHTED, false), is(equalTo(s0.getStyleId())));
+	}
+
+	@Test
+	public void testSnapshotKeepsStyle() {
+		GraphicalState s0 = new GraphicalState();
+		s0.setCenter(new Point(0, 0));
+		s0.setColor(Color.ORANGE);
+		s0.setHighlighted(true);
+		GraphicalElement copy = s0.createSnapshot(new HashMap<GraphicalElement, GraphicalElement>());
+		s0.setHighlighted(false);
+		assertThat(copy.isHighlighted(), is(true));
+		assertThat(copy.getColor(), is(equalTo(Color.ORANGE)));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,102 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document.graphical;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TextLayoutCacheTest {
+
+	TextLayoutCache cache;
+	Font font;
+	FontRenderContext frc;
+
+	@Before
+	public void setUp() {
+		cache = new TextLayoutCache(2);
+		font = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+		frc = new FontRenderContext(null, true, true);
+	}
+
+	@Test
+	public void testLayoutIsReused() {
+		TextLayout layout = cache.getLayout("s0", font, frc);
+		assertThat(cache.getLayout("s0", font, frc), is(sameInstance(layout)));
+		assertThat(cache.size(), is(equalTo(1)));
+	}
+
+	@Test
+	public void testFontIsPartOfKey() {
+		TextLayout layout = cache.getLayout("s0", font, frc);
+		Font bold = font.deriveFont(Font.BOLD);
+		assertThat(cache.getLayout("s0", bold, frc), is(not(sameInstance(layout))));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+		TextLayout a = cache.getLayout("a", font, frc);
+		TextLayout b = cache.getLayout("b", font, frc);
+		cache.getLayout("a", font, frc);
+		cache.getLayout("c", font, frc);
+		assertThat(cache.size(), is(equalTo(2)));
+		assertThat(cache.getLayout("a", font, frc), is(sameInstance(a)));
+		assertThat(cache.getLayout("b", font, frc), is(not(sameInstance(b))));
+	}
+
+	@Test
+	public void testAllLabelsHitAboveDefaultCapacity() {
+		String[] labels = new String[5];
+		TextLayout[] layouts = new TextLayout[labels.length];
+		cache.ensureCapacity(labels.length);
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = "s" + i;
+			layouts[i] = cache.getLayout(labels[i], font, frc);
+		}
+		// A second frame in the same order must only hit.
+		for (int i = 0; i < labels.length; i++) {
+			assertThat(cache.getLayout(labels[i], font, frc), is(sameInstance(layouts[i])));
+		}
+	}
+
+	@Test
+	public void testCapacityShrinksToMinimum() {
+		cache.ensureCapacity(10);
+		assertThat(cache.getCapacity(), is(equalTo(20)));
+		for (int i = 0; i < 10; i++) {
+			cache.getLayout("s" + i, font, frc);
+		}
+		cache.ensureCapacity(0);
+		assertThat(cache.getCapacity(), is(equalTo(2)));
+		assertThat(cache.size(), is(equalTo(2)));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -22,14 +22,20 @@ package uniol.aptgui.document.graphical.edges;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import uniol.aptgui.document.graphical.GraphicalElement;
 import uniol.aptgui.document.graphical.nodes.GraphicalNode;
 import uniol.aptgui.document.graphical.nodes.GraphicalState;
 
@@ -69,6 +75,49 @@ public class GraphicalArcTest {
 		assertThat(edge.coversPoint(new Point(400, 400)), is(equalTo(false)));
 	}
 
+	@Test
+	public void testPathFollowsNodeMovement() {
+		assertThat(edge.coversPoint(new Point(250, 250)), is(equalTo(true)));
+		target.translate(0, -500);
+		assertThat(edge.coversPoint(new Point(250, 250)), is(equalTo(false)));
+		assertThat(edge.coversPoint(new Point(250, 0)), is(equalTo(true)));
+		source.setCenter(new Point(0, 500));
+		assertThat(edge.coversPoint(new Point(250, 0)), is(equalTo(false)));
+		assertThat(edge.coversPoint(new Point(250, 250)), is(equalTo(true)));
+	}
+
+	@Test
+	public void testPathFollowsBreakpointChanges() {
+		edge.addBreakpoint(new Point(500, 0));
+		assertThat(edge.coversPoint(new Point(500, 100)), is(equalTo(true)));
+		edge.translateBreakpoint(0, -500, 500);
+		assertThat(edge.coversPoint(new Point(500, 100)), is(equalTo(false)));
+		assertThat(edge.coversPoint(new Point(0, 250)), is(equalTo(true)));
+		edge.removeAllBreakpoints();
+		assertThat(edge.coversPoint(new Point(0, 250)), is(equalTo(false)));
+		assertThat(edge.coversPoint(new Point(250, 250)), is(equalTo(true)));
+	}
+
+	@Test
+	public void testPathFollowsNodeShape() {
+		ResizableState resizable = new ResizableState();
+		resizable.setCenter(new Point(500, 0));
+		edge.setTarget(resizable);
+		assertThat(edge.getPath().get(1), is(equalTo(new Point(480, 0))));
+		resizable.setRadius(50);
+		assertThat(edge.getPath().get(1), is(equalTo(new Point(450, 0))));
+	}
+
+	@Test
+	public void testCachedPathCopiesBreakpoints() {
+		edge.addBreakpoint(new Point(500, 0));
+		List<Point> path = edge.getPath();
+		assertThat(path.get(1), is(equalTo(new Point(500, 0))));
+		assertThat(path.get(1), is(not(sameInstance(edge.getBreakpoint(0)))));
+		edge.getBreakpoint(0).translate(0, 100);
+		assertThat(path.get(1), is(equalTo(new Point(500, 0))));
+	}
+
 	@Test
 	public void testGetBounds1() {
 		Rectangle r1 = new Rectangle(0, 0, 500, 500);
@@ -106,6 +155,36 @@ public class GraphicalArcTest {
 		assertThat(edge.isBreakpointNecessary(bp), is(equalTo(false)));
 	}
 
+	@Test
+	public void testSnapshotIsIndependent() {
+		edge.addBreakpoint(new Point(500, 0));
+		Map<GraphicalElement, GraphicalElement> snapshots = new HashMap<>();
+		GraphicalEdge snapshot = (GraphicalEdge) edge.createSnapshot(snapshots);
+		assertThat(snapshots.get(source), is(sameInstance((GraphicalElement) snapshot.getSource())));
+		source.translate(0, 500);
+		edge.translateBreakpoint(0, 0, 500);
+		assertThat(snapshot.getSource().getCenter(), is(equalTo(new Point(0, 0))));
+		assertThat(snapshot.getBreakpoint(0), is(equalTo(new Point(500, 0))));
+		assertThat(snapshot.coversPoint(new Point(100, 0)), is(equalTo(true)));
+	}
+
+	/**
+	 * State whose radius can change without moving its center.
+	 */
+	private static class ResizableState extends GraphicalState {
+		private int radius = 20;
+
+		public void setRadius(int radius) {
+			this.radius = radius;
+			fireGeometryChanged();
+		}
+
+		@Override
+		public Point getBoundaryIntersection(Point point) {
+			return getCircleBoundaryIntersection(getCenter(), radius, point);
+		}
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
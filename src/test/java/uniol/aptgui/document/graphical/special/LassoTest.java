@@ -0,0 +1,58 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.document.graphical.special;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.awt.Point;
+
+import org.junit.Test;
+
+public class LassoTest {
+
+	@Test
+	public void testClosePointsAreIgnored() {
+		Lasso lasso = new Lasso();
+		lasso.reset(new Point(0, 0), 4);
+		assertThat(lasso.addPoint(new Point(2, 2)), is(equalTo(false)));
+		assertThat(lasso.addPoint(new Point(4, 0)), is(equalTo(true)));
+		assertThat(lasso.getPointCount(), is(equalTo(2)));
+	}
+
+	@Test
+	public void testLongPathIsThinned() {
+		Lasso lasso = new Lasso();
+		lasso.reset(new Point(0, 0), 1);
+		for (int x = 1; x <= 10000; x++) {
+			lasso.addPoint(new Point(x, 0));
+		}
+		for (int y = 1; y <= 100; y++) {
+			lasso.addPoint(new Point(10000, y));
+		}
+		assertThat(lasso.getPointCount(), is(lessThanOrEqualTo(Lasso.MAX_POINTS)));
+		assertThat(lasso.getArea().contains(5000, 10), is(equalTo(true)));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,79 @@
+/*-
+ * APT - Analysis of Petri Nets and labeled Transition systems
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.aptgui.editor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import uniol.aptgui.document.Viewport;
+
+public class GridRendererTest {
+
+	@Test
+	public void testAlpha() {
+		assertThat(GridRenderer.getAlpha(GridRenderer.MIN_VISIBLE_SPACING - 1), is(equalTo(0)));
+		assertThat(GridRenderer.getAlpha(GridRenderer.MIN_VISIBLE_SPACING), is(equalTo(0)));
+		assertThat(GridRenderer.getAlpha(6), is(equalTo(128)));
+		assertThat(GridRenderer.getAlpha(GridRenderer.OPAQUE_SPACING), is(equalTo(255)));
+		assertThat(GridRenderer.getAlpha(10000), is(equalTo(255)));
+	}
+
+	@Test
+	public void testTileSizeUsesDeviceResolution() {
+		assertThat(GridRenderer.getTileSize(50, 1), is(equalTo(50)));
+		assertThat(GridRenderer.getTileSize(50, 2), is(equalTo(100)));
+		assertThat(GridRenderer.getTileSize(12.4, 1), is(equalTo(12)));
+	}
+
+	@Test
+	public void testLargeSpacingFallsBackToLines() {
+		int max = GridRenderer.MAX_TILE_SIZE;
+		assertThat(GridRenderer.getTileSize(max, 1), is(equalTo(max)));
+		assertThat(GridRenderer.getTileSize(max + 1, 1), is(equalTo(0)));
+		assertThat(GridRenderer.getTileSize(200, 2), is(equalTo(0)));
+		assertThat(GridRenderer.getTileSize(1e9, 1), is(equalTo(0)));
+	}
+
+	@Test
+	public void testDrawLinesAtLargeSpacing() {
+		Viewport viewport = new Viewport();
+		viewport.setWidth(100);
+		viewport.setHeight(100);
+		viewport.setScale(10);
+		BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		new GridRenderer().draw(graphics, viewport, 50);
+		graphics.dispose();
+		// Only the lines through the model origin are visible.
+		assertThat(image.getRGB(0, 50), is(equalTo(Color.GRAY.getRGB())));
+		assertThat(image.getRGB(50, 0), is(equalTo(Color.GRAY.getRGB())));
+		assertThat(image.getRGB(50, 50), is(equalTo(0)));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -86,7 +86,7 @@ public class SelectionToolTest {
 		document.add(gs2, mock(IExtensible.class));
 		document.add(ga1, mock(IExtensible.class));
 
-		history = new History(mock(Application.class), mock(EventBus.class));
+		history = new History(mock(Application.class), mock(EventBus.class), null);
 		EditingOptions eo = mock(EditingOptions.class);
 		when(eo.isSnapToGridEnabled()).thenReturn(false);
 
@@ -120,6 +120,52 @@ public class SelectionToolTest {
 		assertThat(document.getSelection(), containsInAnyOrder(gs1, gs2, ga1));
 	}
 
+	@Test
+	public void testFrameSelectionUpdatesWhileDragging() {
+		Point topLeft = add(ps1, new Point(-50, -50));
+		selectionTool.mousePressed(leftClickAt(topLeft, false));
+		selectionTool.mouseDragged(leftClickAt(add(ps1, new Point(50, 50)), false));
+		assertThat(document.getSelection(), contains((GraphicalElement) gs1));
+		selectionTool.mouseDragged(leftClickAt(add(ps2, new Point(50, 50)), false));
+		assertThat(document.getSelection(), containsInAnyOrder(gs1, gs2, ga1));
+		selectionTool.mouseDragged(leftClickAt(topLeft, false));
+		assertThat(document.getSelection(), is(empty()));
+		selectionTool.mouseReleased(leftClickAt(topLeft, false));
+		assertThat(document.getSelection(), is(empty()));
+	}
+
+	@Test
+	public void testSelectWithLasso() {
+		Point[] lasso = { new Point(-50, -50), new Point(50, -50), new Point(100, 30), new Point(150, -50),
+				new Point(250, -50), new Point(250, 50), new Point(-50, 50) };
+		selectionTool.mousePressed(shiftLeftClickAt(lasso[0]));
+		for (int i = 1; i < lasso.length; i++) {
+			selectionTool.mouseDragged(shiftLeftClickAt(lasso[i]));
+		}
+		selectionTool.mouseReleased(shiftLeftClickAt(lasso[lasso.length - 1]));
+		// The arc passes the notch of the lasso and is not selected
+		assertThat(document.getSelection(), containsInAnyOrder((GraphicalElement) gs1, gs2));
+	}
+
+	@Test
+	public void testSelectWithLongLasso() {
+		// Trace a large square in small steps like a real mouse would.
+		Point[] corners = { new Point(-2000, -2000), new Point(2000, -2000), new Point(2000, 2000),
+				new Point(-2000, 2000), new Point(-2000, -2000) };
+		selectionTool.mousePressed(shiftLeftClickAt(corners[0]));
+		for (int i = 1; i < corners.length; i++) {
+			Point from = corners[i - 1];
+			Point to = corners[i];
+			for (int step = 1; step <= 4000; step++) {
+				int x = from.x + (to.x - from.x) * step / 4000;
+				int y = from.y + (to.y - from.y) * step / 4000;
+				selectionTool.mouseDragged(shiftLeftClickAt(new Point(x, y)));
+			}
+		}
+		selectionTool.mouseReleased(shiftLeftClickAt(corners[0]));
+		assertThat(document.getSelection(), containsInAnyOrder(gs1, gs2, ga1));
+	}
+
 	@Test
 	public void testDeselectWithCtrl() {
 		simulateClick(ps1, false);
@@ -145,6 +191,24 @@ public class SelectionToolTest {
 		assertThat(gs2.getCenter(), is(equalTo(add(ps2, offset))));
 	}
 
+	@Test
+	public void testDragSelectionIsCommittedOnRelease() {
+		simulateClick(ps1, false);
+		simulateClick(ps2, true);
+		Point offset = new Point(100, 50);
+		selectionTool.mousePressed(leftClickAt(ps2, false));
+		selectionTool.mouseDragged(leftClickAt(add(ps2, new Point(10, 10)), false));
+		selectionTool.mouseDragged(leftClickAt(add(ps2, offset), false));
+		// Elements are only shown translated while dragging
+		assertThat(gs1.getCenter(), is(equalTo(ps1)));
+		assertThat(history.canUndo(), is(false));
+		selectionTool.mouseReleased(leftClickAt(add(ps2, offset), false));
+		assertThat(gs1.getCenter(), is(equalTo(add(ps1, offset))));
+		history.undo();
+		assertThat(gs1.getCenter(), is(equalTo(ps1)));
+		assertThat(gs2.getCenter(), is(equalTo(ps2)));
+	}
+
 	@Test
 	public void testDragSelectionFailure() {
 		simulateClick(ps1, false);
@@ -197,6 +261,12 @@ public class SelectionToolTest {
 		selectionTool.mouseReleased(evt);
 	}
 
+	private MouseEvent shiftLeftClickAt(Point pos) {
+		MouseEvent evt = leftClickAt(pos, false);
+		when(evt.isShiftDown()).thenReturn(true);
+		return evt;
+	}
+
 	private void simulateDrag(Point from, Point to) {
 		Point midpoint = midpoint(from, to);
 		selectionTool.mousePressed(leftClickAt(from, false));